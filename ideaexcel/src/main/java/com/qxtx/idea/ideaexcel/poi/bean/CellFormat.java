@@ -0,0 +1,154 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.ExcelStyleDateFormatter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.text.Format;
+import java.util.regex.Pattern;
+
+/**
+ * Created in 2020/5/20 15:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 单元格的数字格式，格式本身不可变。
+ *
+ * <pre>
+ * 是否为日期格式在创建时判断一次，之后每个单元格直接使用结果：
+ * 日期格式的判断需要对格式字符串做多次正则匹配，而一张表格中通常只有少量的几种格式，重复了成千上万次。
+ * 解析器按样式序号（xlsx的styles.xml中的cellXfs，xls的XF记录）缓存本对象，同一种样式的单元格共享同一个对象。
+ *
+ * 转换为字符串：
+ * 1、日期：第一次转换时通过{@link DataFormatter}创建日期格式化对象并缓存在本对象中，
+ *   之后直接格式化，不再判断是否为日期格式，结果与{@link DataFormatter#formatRawCellContents}一致；
+ * 2、数值：仍由{@link DataFormatter#formatRawCellContents}转换，它每次都会判断一次是否为日期格式
+ *   （只缓存最近一次判断的格式），多种数字格式交替出现时这一部分开销无法避免。
+ * </pre>
+ *
+ * @see CellRow#addNumber(int, double, CellFormat)
+ */
+public final class CellFormat {
+
+    /** 带条件的格式，如[>=100]，与{@link DataFormatter}中的判断一致 */
+    private static final Pattern CONDITION_PATTERN = Pattern.compile("\\[\\s*(>|>=|<|<=|=)\\s*[0-9]*\\.*[0-9]");
+
+    /** 数字格式序号 */
+    private final int index;
+
+    /** 数字格式，如yyyy-mm-dd */
+    private final String formatString;
+
+    /** 是否为日期格式 */
+    private final boolean dateFormat;
+
+    /** 创建{@link #javaDateFormat}的格式化对象，不同的格式化对象（语言环境）需要重新创建 */
+    private DataFormatter dateFormatOwner;
+
+    /** 缓存的日期格式化对象，非线程安全，使用时需要同步 */
+    private ExcelStyleDateFormatter javaDateFormat;
+
+    /**
+     * @param index 数字格式序号
+     * @param formatString 数字格式，为null时使用常规格式
+     */
+    public CellFormat(int index, @Nullable String formatString) {
+        this.index = index;
+        this.formatString = formatString;
+        this.dateFormat = formatString != null && DateUtil.isADateFormat(index, formatString);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Nullable
+    public String getFormatString() {
+        return formatString;
+    }
+
+    public boolean isDateFormat() {
+        return dateFormat;
+    }
+
+    /**
+     * 把日期序列号转换为字符串
+     * @param value 有效的日期序列号
+     * @param formatter 创建日期格式化对象使用的格式化对象
+     * @return 不是日期格式，或者格式需要按条件、分段处理时返回null，由{@link DataFormatter}转换
+     */
+    @Nullable
+    String formatDate(double value, boolean date1904, @NonNull DataFormatter formatter) {
+        ExcelStyleDateFormatter format = getJavaDateFormat(value, formatter);
+        if (format == null) {
+            return null;
+        }
+        synchronized (format) {
+            format.setDateToBeFormatted(value);
+            return format.format(DateUtil.getJavaDate(value, date1904));
+        }
+    }
+
+    @Nullable
+    private synchronized ExcelStyleDateFormatter getJavaDateFormat(double value, @NonNull DataFormatter formatter) {
+        if (dateFormatOwner != formatter) {
+            dateFormatOwner = formatter;
+            javaDateFormat = createJavaDateFormat(value, formatter);
+        }
+        return javaDateFormat;
+    }
+
+    /**
+     * 通过{@link DataFormatter#createFormat(Cell)}创建格式化对象，与{@link DataFormatter}内部使用的完全一致。
+     * 分段（多于一个[;]）或带条件（如[>=100]）的格式由{@link DataFormatter}另外处理，这里不缓存
+     */
+    @Nullable
+    private ExcelStyleDateFormatter createJavaDateFormat(final double value, @NonNull DataFormatter formatter) {
+        if (!dateFormat || formatString.indexOf(';') != formatString.lastIndexOf(';')
+                || CONDITION_PATTERN.matcher(formatString).find()) {
+            return null;
+        }
+        //createFormat只读取单元格的数值和样式的数字格式，用代理对象提供这几个值
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getCellStyle":
+                        return Proxy.newProxyInstance(CellStyle.class.getClassLoader(), new Class<?>[]{CellStyle.class}, this);
+                    case "getDataFormat":
+                        return (short) index;
+                    case "getDataFormatString":
+                        return formatString;
+                    case "getNumericCellValue":
+                        return value;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        };
+        Cell cell = (Cell) Proxy.newProxyInstance(Cell.class.getClassLoader(), new Class<?>[]{Cell.class}, handler);
+        Format format;
+        synchronized (formatter) {
+            format = formatter.createFormat(cell);
+        }
+        return format instanceof ExcelStyleDateFormatter ? (ExcelStyleDateFormatter) format : null;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "CellFormat{" +
+                "index=" + index +
+                ", formatString='" + formatString + '\'' +
+                ", dateFormat=" + dateFormat +
+                '}';
+    }
+}
@@ -0,0 +1,522 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+
+/**
+ * Created in 2020/5/16 11:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 带类型的一行表格数据。
+ *
+ * <pre>
+ * 单元格的值按类型保存在基本类型数组中：数值、日期、布尔值保存为double，不会装箱，也不会转换为字符串；
+ * 只有调用{@link #getString(int)}时，数值才会按单元格的数字格式转换为字符串（与excel中显示的内容一致）。
+ *
+ * 日期的识别：单元格的值为数值，并且数字格式是日期格式（xls的FORMAT/XF记录、xlsx的styles.xml），类型为{@link CellType#DATE}。
+ *
+ * 读取方式：
+ * 1、按列序号读取：{@link #getType(int)}、{@link #getDouble(int)}、{@link #getString(int)}等；
+ * 2、使用游标依次读取本行中存在的单元格：
+ *   CellRow.Cursor cursor = row.cursor();
+ *   while (cursor.next()) {
+ *       int column = cursor.column();
+ *       if (cursor.type() == CellRow.CellType.NUMBER) {
+ *           double value = cursor.getDouble();
+ *       }
+ *   }
+ *
+ * 注意：解析过程中同一个对象可能会被多行复用，需要保留时调用{@link #copy()}
+ * </pre>
+ */
+public final class CellRow {
+
+    /** 单元格类型 */
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface CellType {
+        /** 空单元格，或者本行中不存在的列 */
+        int BLANK = 0;
+        /** 字符串 */
+        int STRING = 1;
+        /** 数值 */
+        int NUMBER = 2;
+        /** 布尔值 */
+        int BOOLEAN = 3;
+        /** 日期，值为excel中的日期序列号 */
+        int DATE = 4;
+        /** 错误，如#DIV/0! */
+        int ERROR = 5;
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private SheetInfo sheet;
+
+    private int rowIndex;
+
+    /** 日期是否使用1904日期系统 */
+    private boolean date1904;
+
+    /** 数值转换为字符串时使用的格式化对象 */
+    private DataFormatter formatter;
+
+    /** 本行中存在的单元格数量 */
+    private int size;
+
+    /** 每个单元格的列序号，按从小到大的顺序排列 */
+    private int[] columns = new int[INITIAL_CAPACITY];
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    /** 数值、日期、布尔值（1或0） */
+    private double[] numbers = new double[INITIAL_CAPACITY];
+
+    /** 字符串和错误的内容；数值转换后的字符串也缓存在这里 */
+    private String[] strings = new String[INITIAL_CAPACITY];
+
+    /** 数值、日期的数字格式，同一种样式的单元格共享同一个对象 */
+    private CellFormat[] formats = new CellFormat[INITIAL_CAPACITY];
+
+    private final Cursor cursor = new Cursor();
+
+    /** 所属的sheet */
+    @Nullable
+    public SheetInfo getSheet() {
+        return sheet;
+    }
+
+    /** 行序号，从0开始计数 */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    /** 日期数值是否使用1904日期系统 */
+    public boolean isDate1904() {
+        return date1904;
+    }
+
+    /** 数值转换为字符串时使用的格式化对象 */
+    @Nullable
+    DataFormatter getFormatter() {
+        return formatter;
+    }
+
+    /** 本行中存在的单元格数量 */
+    public int getCellCount() {
+        return size;
+    }
+
+    /** 本行的列数，即最后一个单元格的列序号加1 */
+    public int getColumnCount() {
+        return size == 0 ? 0 : columns[size - 1] + 1;
+    }
+
+    /** 本行中第position个存在的单元格的列序号 */
+    public int getColumn(int position) {
+        checkPosition(position);
+        return columns[position];
+    }
+
+    /**
+     * 本行中第position个存在的单元格的字符串，数值按数字格式转换
+     * @see #getString(int)
+     */
+    @NonNull
+    public String getStringAt(int position) {
+        checkPosition(position);
+        return stringAt(position);
+    }
+
+    /**
+     * 查找某一列的单元格在本行中的位置
+     * @return 单元格不存在时返回-1
+     */
+    public int indexOf(int column) {
+        //大部分行中的单元格是连续的
+        if (column < size && columns[column] == column) {
+            return column;
+        }
+        int i = Arrays.binarySearch(columns, 0, size, column);
+        return i < 0 ? -1 : i;
+    }
+
+    /** 单元格类型，见{@link CellType}，不存在的列为{@link CellType#BLANK} */
+    public int getType(int column) {
+        int i = indexOf(column);
+        return i < 0 ? CellType.BLANK : types[i];
+    }
+
+    /** 单元格的数值；布尔值为1或0，日期为excel中的日期序列号，其他类型为0 */
+    public double getDouble(int column) {
+        int i = indexOf(column);
+        return i < 0 ? 0 : numbers[i];
+    }
+
+    /** 单元格的数值，小数部分被截断 */
+    public long getLong(int column) {
+        return (long) getDouble(column);
+    }
+
+    /** 单元格的布尔值，数值不为0时为true */
+    public boolean getBoolean(int column) {
+        return getDouble(column) != 0;
+    }
+
+    /**
+     * 单元格的日期
+     * @return 不是数值或日期，或者不是有效的日期时返回null
+     */
+    @Nullable
+    public Date getDate(int column) {
+        int i = indexOf(column);
+        return i < 0 ? null : dateAt(i);
+    }
+
+    /**
+     * 单元格的字符串，数值按数字格式转换
+     * @return 不存在的列返回null
+     */
+    @Nullable
+    public String getString(int column) {
+        int i = indexOf(column);
+        return i < 0 ? null : stringAt(i);
+    }
+
+    /** 单元格的数字格式序号 */
+    public int getFormatIndex(int column) {
+        return formatIndexAt(indexOf(column));
+    }
+
+    /** 单元格的数字格式，如yyyy-mm-dd */
+    @Nullable
+    public String getFormatString(int column) {
+        return formatStringAt(indexOf(column));
+    }
+
+    /** 单元格的数字格式，不是数值、日期时返回null */
+    @Nullable
+    public CellFormat getFormat(int column) {
+        int i = indexOf(column);
+        return i < 0 ? null : formats[i];
+    }
+
+    /**
+     * 游标，依次读取本行中存在的单元格。
+     * 每一行只有一个游标对象，每次调用都会将游标重置到第一个单元格之前
+     */
+    @NonNull
+    public Cursor cursor() {
+        cursor.position = -1;
+        return cursor;
+    }
+
+    /** 复制一份独立的对象，不会被后续的行覆盖 */
+    @NonNull
+    public CellRow copy() {
+        CellRow row = new CellRow();
+        row.sheet = sheet;
+        row.rowIndex = rowIndex;
+        row.date1904 = date1904;
+        row.formatter = formatter;
+        row.size = size;
+        row.columns = Arrays.copyOf(columns, size);
+        row.types = Arrays.copyOf(types, size);
+        row.numbers = Arrays.copyOf(numbers, size);
+        row.strings = Arrays.copyOf(strings, size);
+        row.formats = Arrays.copyOf(formats, size);
+        return row;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CellRow{rowIndex=").append(rowIndex).append(", cells=[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columns[i]).append('=').append(stringAt(i));
+        }
+        return sb.append("]}").toString();
+    }
+
+    //========================== 以下方法供解析器写入数据 ==========================
+
+    /**
+     * 开始新的一行，清空上一行的数据
+     * @param formatter 数值转换为字符串时使用的格式化对象
+     */
+    public void reset(@Nullable SheetInfo sheet, int rowIndex, boolean date1904, @Nullable DataFormatter formatter) {
+        this.sheet = sheet;
+        this.rowIndex = rowIndex;
+        this.date1904 = date1904;
+        this.formatter = formatter;
+        Arrays.fill(strings, 0, size, null);
+        Arrays.fill(formats, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * 追加一个字符串单元格。
+     * 以下的追加方法中，列序号通常大于已有的单元格；列序号已经存在时覆盖原来的单元格，小于已有的列序号时插入到对应的位置
+     */
+    public void addString(int column, @NonNull String value) {
+        int i = append(column, CellType.STRING);
+        strings[i] = value;
+    }
+
+    /**
+     * 追加一个数值单元格，数字格式为日期格式时类型为{@link CellType#DATE}。
+     * 每次调用都会重新判断是否为日期格式，解析器应缓存{@link CellFormat}，使用{@link #addNumber(int, double, CellFormat)}
+     * @param formatIndex 数字格式序号
+     * @param formatString 数字格式，为null时使用常规格式
+     */
+    public void addNumber(int column, double value, int formatIndex, @Nullable String formatString) {
+        addNumber(column, value, formatIndex < 0 && formatString == null ? null : new CellFormat(formatIndex, formatString));
+    }
+
+    /**
+     * 追加一个数值单元格，数字格式为日期格式时类型为{@link CellType#DATE}
+     * @param format 数字格式，为null时使用常规格式
+     */
+    public void addNumber(int column, double value, @Nullable CellFormat format) {
+        boolean isDate = format != null && format.isDateFormat() && DateUtil.isValidExcelDate(value);
+        int i = append(column, isDate ? CellType.DATE : CellType.NUMBER);
+        numbers[i] = value;
+        formats[i] = format;
+    }
+
+    public void addBoolean(int column, boolean value) {
+        int i = append(column, CellType.BOOLEAN);
+        numbers[i] = value ? 1 : 0;
+    }
+
+    /** @param text 错误的内容，如#DIV/0! */
+    public void addError(int column, @NonNull String text) {
+        int i = append(column, CellType.ERROR);
+        strings[i] = text;
+    }
+
+    public void addBlank(int column) {
+        append(column, CellType.BLANK);
+    }
+
+    /** 只保留指定列的单元格，其他单元格被移除 */
+    public void retainColumns(@NonNull BitSet retained) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (!retained.get(columns[i])) {
+                continue;
+            }
+            if (n != i) {
+                columns[n] = columns[i];
+                types[n] = types[i];
+                numbers[n] = numbers[i];
+                strings[n] = strings[i];
+                formats[n] = formats[i];
+            }
+            n++;
+        }
+        Arrays.fill(strings, n, size, null);
+        Arrays.fill(formats, n, size, null);
+        size = n;
+    }
+
+    private int append(int column, int type) {
+        int i = size;
+        if (size > 0 && column <= columns[size - 1]) {
+            //xls的单元格记录按文件中的顺序交付，个别文件中同一行的记录重复或者不按列序号排列
+            i = Arrays.binarySearch(columns, 0, size, column);
+            if (i >= 0) {
+                return set(i, column, type);
+            }
+            i = -i - 1;
+        }
+        if (size == columns.length) {
+            int capacity = size * 2;
+            columns = Arrays.copyOf(columns, capacity);
+            types = Arrays.copyOf(types, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+            formats = Arrays.copyOf(formats, capacity);
+        }
+        if (i < size) {
+            int count = size - i;
+            System.arraycopy(columns, i, columns, i + 1, count);
+            System.arraycopy(types, i, types, i + 1, count);
+            System.arraycopy(numbers, i, numbers, i + 1, count);
+            System.arraycopy(strings, i, strings, i + 1, count);
+            System.arraycopy(formats, i, formats, i + 1, count);
+        }
+        size++;
+        return set(i, column, type);
+    }
+
+    private int set(int i, int column, int type) {
+        columns[i] = column;
+        types[i] = (byte) type;
+        numbers[i] = 0;
+        strings[i] = null;
+        formats[i] = null;
+        return i;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position=" + position + ", size=" + size);
+        }
+    }
+
+    private int formatIndexAt(int i) {
+        return i < 0 || formats[i] == null ? -1 : formats[i].getIndex();
+    }
+
+    @Nullable
+    private String formatStringAt(int i) {
+        return i < 0 || formats[i] == null ? null : formats[i].getFormatString();
+    }
+
+    @Nullable
+    private Date dateAt(int i) {
+        if (types[i] != CellType.DATE && types[i] != CellType.NUMBER) {
+            return null;
+        }
+        return DateUtil.isValidExcelDate(numbers[i]) ? DateUtil.getJavaDate(numbers[i], date1904) : null;
+    }
+
+    @NonNull
+    private String stringAt(int i) {
+        switch (types[i]) {
+            case CellType.STRING:
+            case CellType.ERROR:
+                return strings[i];
+            case CellType.BOOLEAN:
+                return numbers[i] != 0 ? "TRUE" : "FALSE";
+            case CellType.NUMBER:
+            case CellType.DATE:
+                //转换后缓存，同一个单元格只转换一次
+                if (strings[i] == null) {
+                    strings[i] = formatNumber(i);
+                }
+                return strings[i];
+            case CellType.BLANK:
+            default:
+                return "";
+        }
+    }
+
+    @NonNull
+    private String formatNumber(int i) {
+        return formatNumber(numbers[i], types[i], formats[i], date1904, formatter);
+    }
+
+    /**
+     * 按数字格式把数值、日期转换为字符串，与excel中显示的内容一致
+     * @param type {@link CellType#NUMBER}或{@link CellType#DATE}
+     * @param formatter 为null时不使用数字格式
+     */
+    @NonNull
+    static String formatNumber(double value, int type, @Nullable CellFormat format, boolean date1904,
+                               @Nullable DataFormatter formatter) {
+        if (formatter == null || format == null || format.getFormatString() == null) {
+            return NumberToTextConverter.toText(value);
+        }
+        //日期使用格式中缓存的日期格式化对象，不再判断是否为日期格式
+        if (type == CellType.DATE) {
+            String text = format.formatDate(value, date1904, formatter);
+            if (text != null) {
+                return text;
+            }
+        }
+        //DataFormatter不是线程安全的，复制出来的行可能在其他线程中使用
+        synchronized (formatter) {
+            return formatter.formatRawCellContents(value, format.getIndex(), format.getFormatString(), date1904);
+        }
+    }
+
+    /** 依次读取本行中存在的单元格 */
+    public final class Cursor {
+
+        private int position = -1;
+
+        /**
+         * 移动到下一个单元格
+         * @return [false]已经没有更多单元格
+         */
+        public boolean next() {
+            if (position + 1 >= size) {
+                position = size;
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        /** 当前单元格的列序号 */
+        public int column() {
+            checkPosition(position);
+            return columns[position];
+        }
+
+        /** 当前单元格的类型，见{@link CellType} */
+        public int type() {
+            checkPosition(position);
+            return types[position];
+        }
+
+        public double getDouble() {
+            checkPosition(position);
+            return numbers[position];
+        }
+
+        public long getLong() {
+            return (long) getDouble();
+        }
+
+        public boolean getBoolean() {
+            return getDouble() != 0;
+        }
+
+        @Nullable
+        public Date getDate() {
+            checkPosition(position);
+            return dateAt(position);
+        }
+
+        @NonNull
+        public String getString() {
+            checkPosition(position);
+            return stringAt(position);
+        }
+
+        /** 当前单元格的数字格式序号 */
+        public int getFormatIndex() {
+            checkPosition(position);
+            return formatIndexAt(position);
+        }
+
+        /** 当前单元格的数字格式，没有时返回null */
+        @Nullable
+        public String getFormatString() {
+            checkPosition(position);
+            return formatStringAt(position);
+        }
+
+        /** 当前单元格的数字格式，不是数值、日期时返回null */
+        @Nullable
+        public CellFormat getFormat() {
+            checkPosition(position);
+            return formats[position];
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Created in 2020/5/12 10:21
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 字符数组上的一段只读视图，不持有数据副本。
+ *
+ * <pre>
+ * 注意：
+ * 1、视图直接指向解析器内部的缓冲区，缓冲区被复用后视图的内容也会随之改变，
+ *   因此只在产生它的回调/解析步骤内有效，需要保留时请调用{@link #toString()}得到字符串副本；
+ * 2、只有调用{@link #toString()}时才会真正创建字符串。
+ * </pre>
+ */
+public final class CharSlice implements CharSequence {
+
+    private char[] array;
+
+    private int offset;
+
+    private int length;
+
+    public CharSlice() { }
+
+    public CharSlice(@NonNull char[] array, int offset, int length) {
+        set(array, offset, length);
+    }
+
+    /** 重新指向另一段字符 */
+    public void set(@NonNull char[] array, int offset, int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index=" + index + ", length=" + length);
+        }
+        return array[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start=" + start + ", end=" + end + ", length=" + length);
+        }
+        return new CharSlice(array, offset + start, end - start);
+    }
+
+    /** 内容是否与指定字符序列相同，不会创建字符串 */
+    public boolean contentEquals(@NonNull CharSequence cs) {
+        if (cs.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (array[offset + i] != cs.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return length == 0 ? "" : new String(array, offset, length);
+    }
+}
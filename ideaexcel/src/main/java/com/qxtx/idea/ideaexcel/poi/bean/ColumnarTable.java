@@ -0,0 +1,582 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Created in 2020/5/19 14:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按列保存的一张sheet，在读取过程中逐行构建，见{@link Builder}、
+ * {@link com.qxtx.idea.ideaexcel.poi.parser.ColumnarSink}。
+ *
+ * <pre>
+ * 每一列按单元格的类型选择存储方式：
+ * 1、整数：long[]；
+ * 2、小数：double[]；
+ * 3、日期：double[]，保存excel中的日期数值；
+ * 4、字符串（包括布尔值、错误）：字典编码，int[]保存每一行在字典中的序号，相同的字符串只保存一次；
+ * 5、空白和不存在的单元格：不占用值的空间，通过{@link BitSet}记录，见{@link Column#isNull(int)}。
+ *
+ * 类型在构建过程中自动提升：整数列出现小数时转换为小数列，日期和数值混合时转换为小数列，
+ * 数值列出现字符串时整列转换为字符串列，已有的数值按该列第一个数值的数字格式转换为字符串。
+ * 与List&lt;List&lt;String&gt;&gt;相比，数值不需要转换为字符串，重复的字符串只保存一份，按列遍历时访问的是连续的基本类型数组。
+ *
+ * 构建完成后不可修改，可以在多个线程中同时读取。
+ * </pre>
+ */
+public final class ColumnarTable {
+
+    /** 列的存储类型 */
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Kind {
+        /** 所有单元格都为空 */
+        int EMPTY = 0;
+        int LONG = 1;
+        int DOUBLE = 2;
+        int DATE = 3;
+        int STRING = 4;
+    }
+
+    @Nullable
+    private final SheetInfo sheet;
+
+    private final int rowCount;
+
+    /** 每一行在sheet中的行序号 */
+    private final int[] rowIndexes;
+
+    /** 表头中的列名，没有表头时为null */
+    @Nullable
+    private final String[] names;
+
+    private final Column[] columns;
+
+    private ColumnarTable(@Nullable SheetInfo sheet, int rowCount, @NonNull int[] rowIndexes,
+                          @Nullable String[] names, @NonNull Column[] columns) {
+        this.sheet = sheet;
+        this.rowCount = rowCount;
+        this.rowIndexes = rowIndexes;
+        this.names = names;
+        this.columns = columns;
+    }
+
+    @Nullable
+    public SheetInfo getSheet() {
+        return sheet;
+    }
+
+    /** 数据行数，不包括表头 */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** 列数，即最后一个非空列的列序号加1 */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * 第row行在sheet中的行序号
+     * @param row 表中的行位置，从0开始计数
+     */
+    public int getRowIndex(int row) {
+        checkRow(row, rowCount);
+        return rowIndexes[row];
+    }
+
+    /**
+     * 表头中的列名
+     * @return 没有表头或者表头中该列为空时返回null
+     */
+    @Nullable
+    public String getColumnName(int column) {
+        return names == null || column >= names.length ? null : names[column];
+    }
+
+    /**
+     * 按表头中的列名查找列序号，与表头单元格去掉首尾空白后比较
+     * @return 找不到时返回-1
+     */
+    public int indexOf(@NonNull String name) {
+        if (names == null) {
+            return -1;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && names[i].trim().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param column 列序号，从0开始计数
+     */
+    @NonNull
+    public Column getColumn(int column) {
+        return columns[column];
+    }
+
+    /**
+     * @return 表头中找不到该列名时返回null
+     */
+    @Nullable
+    public Column getColumn(@NonNull String name) {
+        int column = indexOf(name);
+        return column < 0 ? null : columns[column];
+    }
+
+    private static void checkRow(int row, int rowCount) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row=" + row + ", rowCount=" + rowCount);
+        }
+    }
+
+    @NonNull
+    private static String formatNumber(double value, @Kind int kind, int formatIndex, @Nullable String formatString,
+                                       boolean date1904, @NonNull DataFormatter formatter) {
+        if (formatString == null) {
+            return kind == Kind.LONG ? Long.toString((long) value) : NumberToTextConverter.toText(value);
+        }
+        synchronized (formatter) {
+            return formatter.formatRawCellContents(value, formatIndex, formatString, date1904);
+        }
+    }
+
+    /** 一列数据 */
+    public static final class Column {
+
+        @Kind
+        private final int kind;
+
+        private final int rowCount;
+
+        /** 非空的行 */
+        private final BitSet present;
+
+        private final long[] longs;
+
+        private final double[] doubles;
+
+        private final int[] codes;
+
+        private final String[] dictionary;
+
+        /** 数值的数字格式，来自该列第一个数值 */
+        private final int formatIndex;
+
+        private final String formatString;
+
+        private final boolean date1904;
+
+        private final DataFormatter formatter;
+
+        private Column(@NonNull ColumnBuilder builder, int rowCount, boolean date1904,
+                       @NonNull DataFormatter formatter) {
+            this.kind = builder.kind;
+            this.rowCount = rowCount;
+            this.present = builder.present;
+            this.longs = builder.longs == null ? null : Arrays.copyOf(builder.longs, rowCount);
+            this.doubles = builder.doubles == null ? null : Arrays.copyOf(builder.doubles, rowCount);
+            if (builder.codes == null) {
+                this.codes = null;
+                this.dictionary = null;
+            } else {
+                //空的行序号为-1
+                int[] codes = Arrays.copyOf(builder.codes, rowCount);
+                for (int i = present.nextClearBit(0); i < rowCount; i = present.nextClearBit(i + 1)) {
+                    codes[i] = -1;
+                }
+                this.codes = codes;
+                this.dictionary = builder.pool.toArray(new String[0]);
+            }
+            this.formatIndex = builder.formatIndex;
+            this.formatString = builder.formatString;
+            this.date1904 = date1904;
+            this.formatter = formatter;
+        }
+
+        /** 存储类型，见{@link Kind} */
+        @Kind
+        public int getKind() {
+            return kind;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /** 第row行的单元格是否为空白或者不存在 */
+        public boolean isNull(int row) {
+            checkRow(row, rowCount);
+            return !present.get(row);
+        }
+
+        /** 空的单元格数量 */
+        public int getNullCount() {
+            return rowCount - present.cardinality();
+        }
+
+        /**
+         * 第row行的数值，小数直接截断，空的单元格为0
+         * @throws IllegalStateException 不是数值列
+         */
+        public long getLong(int row) {
+            checkRow(row, rowCount);
+            if (kind == Kind.LONG) {
+                return longs[row];
+            }
+            return (long) getDouble(row);
+        }
+
+        /**
+         * 第row行的数值，日期列为excel中的日期数值，空的单元格为0
+         * @throws IllegalStateException 不是数值列
+         */
+        public double getDouble(int row) {
+            checkRow(row, rowCount);
+            switch (kind) {
+                case Kind.LONG:
+                    return longs[row];
+                case Kind.DOUBLE:
+                case Kind.DATE:
+                    return doubles[row];
+                case Kind.EMPTY:
+                    return 0;
+                default:
+                    throw new IllegalStateException("不是数值列");
+            }
+        }
+
+        /**
+         * 第row行的日期
+         * @return 不是日期列、单元格为空或者不是有效的日期数值时返回null
+         */
+        @Nullable
+        public Date getDate(int row) {
+            checkRow(row, rowCount);
+            if (kind != Kind.DATE || !present.get(row) || !DateUtil.isValidExcelDate(doubles[row])) {
+                return null;
+            }
+            return DateUtil.getJavaDate(doubles[row], date1904);
+        }
+
+        /**
+         * 第row行按excel中显示的内容转换的字符串，数值按该列第一个数值的数字格式转换
+         * @return 单元格为空时返回null
+         */
+        @Nullable
+        public String getString(int row) {
+            checkRow(row, rowCount);
+            if (!present.get(row)) {
+                return null;
+            }
+            switch (kind) {
+                case Kind.STRING:
+                    return dictionary[codes[row]];
+                case Kind.LONG:
+                    return formatNumber(longs[row], kind, formatIndex, formatString, date1904, formatter);
+                case Kind.DOUBLE:
+                case Kind.DATE:
+                    return formatNumber(doubles[row], kind, formatIndex, formatString, date1904, formatter);
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * 字符串列中第row行在字典中的序号
+         * @return 单元格为空时返回-1
+         * @throws IllegalStateException 不是字符串列
+         */
+        public int getCode(int row) {
+            checkRow(row, rowCount);
+            if (codes == null) {
+                throw new IllegalStateException("不是字符串列");
+            }
+            return codes[row];
+        }
+
+        /** 字符串列的字典，按第一次出现的顺序排列；不是字符串列时为空列表 */
+        @NonNull
+        public List<String> getDictionary() {
+            return dictionary == null ? Collections.<String>emptyList()
+                    : Collections.unmodifiableList(Arrays.asList(dictionary));
+        }
+
+        /**
+         * 整数列的值，长度为行数，空的单元格为0，用于快速遍历。
+         * 注意：返回的是内部数组，不能修改
+         * @return 不是整数列时返回null
+         */
+        @Nullable
+        public long[] getLongs() {
+            return longs;
+        }
+
+        /**
+         * 小数列、日期列的值，长度为行数，空的单元格为0，用于快速遍历。
+         * 注意：返回的是内部数组，不能修改
+         * @return 不是小数列或日期列时返回null
+         */
+        @Nullable
+        public double[] getDoubles() {
+            return doubles;
+        }
+
+        /**
+         * 字符串列的字典序号，长度为行数，空的单元格为-1，用于快速遍历和分组。
+         * 注意：返回的是内部数组，不能修改
+         * @return 不是字符串列时返回null
+         */
+        @Nullable
+        public int[] getCodes() {
+            return codes;
+        }
+    }
+
+    /**
+     * 逐行构建按列保存的表，非线程安全。
+     * 每一行只读取存在的单元格，行对象在{@link #addRow(CellRow)}返回后可以复用
+     */
+    public static final class Builder {
+
+        @Nullable
+        private final SheetInfo sheet;
+
+        /** 第一行是否为表头 */
+        private final boolean header;
+
+        private final DataFormatter formatter = new DataFormatter();
+
+        private boolean date1904;
+
+        private String[] names;
+
+        private int rowCount;
+
+        private int[] rowIndexes = new int[16];
+
+        private ColumnBuilder[] columns = new ColumnBuilder[0];
+
+        /**
+         * @param header [true]第一行作为表头，用作列名，不作为数据行
+         */
+        public Builder(@Nullable SheetInfo sheet, boolean header) {
+            this.sheet = sheet;
+            this.header = header;
+        }
+
+        /** 追加一行 */
+        public void addRow(@NonNull CellRow row) {
+            date1904 = row.isDate1904();
+            CellRow.Cursor cursor = row.cursor();
+            if (header && names == null) {
+                names = new String[row.getColumnCount()];
+                while (cursor.next()) {
+                    names[cursor.column()] = cursor.getString();
+                }
+                return;
+            }
+
+            if (rowCount == rowIndexes.length) {
+                rowIndexes = Arrays.copyOf(rowIndexes, rowCount * 2);
+            }
+            rowIndexes[rowCount] = row.getRowIndex();
+            while (cursor.next()) {
+                int column = cursor.column();
+                if (column >= columns.length) {
+                    int length = columns.length;
+                    columns = Arrays.copyOf(columns, Math.max(column + 1, length * 2));
+                    for (int i = length; i < columns.length; i++) {
+                        columns[i] = new ColumnBuilder();
+                    }
+                }
+                columns[column].add(rowCount, cursor, this);
+            }
+            rowCount++;
+        }
+
+        @NonNull
+        public ColumnarTable build() {
+            //去掉末尾全部为空的列
+            int columnCount = columns.length;
+            while (columnCount > 0 && columns[columnCount - 1].kind == Kind.EMPTY) {
+                columnCount--;
+            }
+            if (names != null) {
+                columnCount = Math.max(columnCount, names.length);
+            }
+
+            Column[] result = new Column[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                ColumnBuilder builder = i < columns.length ? columns[i] : new ColumnBuilder();
+                result[i] = new Column(builder, rowCount, date1904, formatter);
+            }
+            return new ColumnarTable(sheet, rowCount, Arrays.copyOf(rowIndexes, rowCount), names, result);
+        }
+    }
+
+    /** 构建中的一列，按需要提升存储类型 */
+    private static final class ColumnBuilder {
+
+        @Kind
+        private int kind = Kind.EMPTY;
+
+        private final BitSet present = new BitSet();
+
+        private long[] longs;
+
+        private double[] doubles;
+
+        private int[] codes;
+
+        private HashMap<String, Integer> codeMap;
+
+        private ArrayList<String> pool;
+
+        private int formatIndex = -1;
+
+        private String formatString;
+
+        void add(int row, @NonNull CellRow.Cursor cursor, @NonNull Builder builder) {
+            switch (cursor.type()) {
+                case CellRow.CellType.BLANK:
+                    return;
+                case CellRow.CellType.NUMBER:
+                case CellRow.CellType.DATE:
+                    if (kind == Kind.STRING) {
+                        addString(row, cursor.getString());
+                    } else {
+                        addNumber(row, cursor, builder);
+                    }
+                    break;
+                default:
+                    if (kind != Kind.STRING) {
+                        toStringKind(row, builder);
+                    }
+                    addString(row, cursor.getString());
+                    break;
+            }
+            present.set(row);
+        }
+
+        private void addNumber(int row, @NonNull CellRow.Cursor cursor, @NonNull Builder builder) {
+            double value = cursor.getDouble();
+            boolean date = cursor.type() == CellRow.CellType.DATE;
+            switch (kind) {
+                case Kind.EMPTY:
+                    formatIndex = cursor.getFormatIndex();
+                    formatString = cursor.getFormatString();
+                    kind = date ? Kind.DATE : isLong(value) ? Kind.LONG : Kind.DOUBLE;
+                    break;
+                case Kind.LONG:
+                    if (date || !isLong(value)) {
+                        toDoubleKind();
+                    }
+                    break;
+                case Kind.DATE:
+                    //日期与数值混合时为小数列
+                    if (!date) {
+                        kind = Kind.DOUBLE;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (kind == Kind.LONG) {
+                longs = ensure(longs, row);
+                longs[row] = (long) value;
+            } else {
+                doubles = ensure(doubles, row);
+                doubles[row] = value;
+            }
+        }
+
+        private void addString(int row, @NonNull String value) {
+            Integer code = codeMap.get(value);
+            if (code == null) {
+                code = pool.size();
+                pool.add(value);
+                codeMap.put(value, code);
+            }
+            codes = ensure(codes, row);
+            codes[row] = code;
+        }
+
+        private void toDoubleKind() {
+            if (longs != null) {
+                doubles = new double[longs.length];
+                for (int i = 0; i < longs.length; i++) {
+                    doubles[i] = longs[i];
+                }
+                longs = null;
+            }
+            kind = Kind.DOUBLE;
+        }
+
+        /** 数值列中出现字符串，已有的数值按数字格式转换为字符串 */
+        private void toStringKind(int row, @NonNull Builder builder) {
+            @Kind int oldKind = kind;
+            kind = Kind.STRING;
+            codeMap = new HashMap<>();
+            pool = new ArrayList<>();
+            codes = new int[Math.max(16, row + 1)];
+            if (oldKind == Kind.EMPTY) {
+                return;
+            }
+            for (int i = present.nextSetBit(0); i >= 0 && i < row; i = present.nextSetBit(i + 1)) {
+                double value = oldKind == Kind.LONG ? longs[i] : doubles[i];
+                addString(i, formatNumber(value, oldKind, formatIndex, formatString, builder.date1904,
+                        builder.formatter));
+            }
+            longs = null;
+            doubles = null;
+        }
+
+        private static boolean isLong(double value) {
+            return value == Math.rint(value) && Math.abs(value) < 9007199254740992d;
+        }
+
+        @NonNull
+        private static long[] ensure(@Nullable long[] array, int row) {
+            if (array == null) {
+                return new long[Math.max(16, row + 1)];
+            }
+            return row < array.length ? array : Arrays.copyOf(array, Math.max(row + 1, array.length * 2));
+        }
+
+        @NonNull
+        private static double[] ensure(@Nullable double[] array, int row) {
+            if (array == null) {
+                return new double[Math.max(16, row + 1)];
+            }
+            return row < array.length ? array : Arrays.copyOf(array, Math.max(row + 1, array.length * 2));
+        }
+
+        @NonNull
+        private static int[] ensure(@Nullable int[] array, int row) {
+            if (array == null) {
+                return new int[Math.max(16, row + 1)];
+            }
+            return row < array.length ? array : Arrays.copyOf(array, Math.max(row + 1, array.length * 2));
+        }
+    }
+}
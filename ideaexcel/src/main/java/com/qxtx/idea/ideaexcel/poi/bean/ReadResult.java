@@ -0,0 +1,35 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+/**
+ * Created in 2020/5/18 15:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 异步读取的结果，见{@link com.qxtx.idea.ideaexcel.poi.parser.ExcelReader#readAsync}
+ */
+public final class ReadResult {
+
+    /** 交给外部的行数 */
+    private final long rowCount;
+
+    /** 交给外部的批数 */
+    private final int batchCount;
+
+    public ReadResult(long rowCount, int batchCount) {
+        this.rowCount = rowCount;
+        this.batchCount = batchCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ReadResult{rowCount=" + rowCount + ", batchCount=" + batchCount + "}";
+    }
+}
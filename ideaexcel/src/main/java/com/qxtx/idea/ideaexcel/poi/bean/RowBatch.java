@@ -0,0 +1,260 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Created in 2020/5/19 9:40
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 一批行数据，按行连续保存在可复用的数组中，见{@link com.qxtx.idea.ideaexcel.poi.callback.IBatchReadCallback}。
+ *
+ * <pre>
+ * 存储方式：
+ * 1、所有单元格按行依次保存在同一个数组中，第i行的单元格为[rowStarts[i], rowStarts[i + 1])；
+ * 2、每个单元格保存列序号、类型、数值（数值、日期、布尔值）、数字格式和字符串（字符串、错误），空缺的列不占用空间；
+ * 3、数值、日期只在调用{@link #getString(int, int)}等方法时才按数字格式转换为字符串，转换结果缓存下来，
+ *   只读取{@link #getDouble(int, int)}时不会产生字符串；
+ * 4、数组在多批之间复用，只在容量不足时扩容，一批中的行数和单元格数稳定后不再分配数组。
+ *
+ * 同一批中的行都属于同一张sheet，行序号递增，但不一定连续（空行、范围之外的行、不符合过滤条件的行不会出现）。
+ * 注意：对象在每一批回调结束后被清空复用，需要保留时调用{@link #getRow(int)}复制。
+ * </pre>
+ */
+public final class RowBatch {
+
+    private SheetInfo sheet;
+
+    /** 日期是否使用1904日期系统，同一张sheet中的行相同 */
+    private boolean date1904;
+
+    /** 数值转换为字符串时使用的格式化对象 */
+    private DataFormatter formatter;
+
+    /** 行数 */
+    private int size;
+
+    /** 单元格总数 */
+    private int cellCount;
+
+    private int[] rowIndexes;
+
+    /** 每一行第一个单元格的位置，rowStarts[size]为单元格总数 */
+    private int[] rowStarts;
+
+    private int[] columns;
+
+    /** 单元格类型，见{@link CellRow.CellType} */
+    private byte[] types;
+
+    /** 数值、日期、布尔值（1或0） */
+    private double[] numbers;
+
+    /** 数值、日期的数字格式 */
+    private CellFormat[] formats;
+
+    /** 字符串和错误的内容；数值转换后的字符串也缓存在这里 */
+    private String[] values;
+
+    public RowBatch() {
+        this(16);
+    }
+
+    /**
+     * @param rowCapacity 初始能保存的行数
+     */
+    public RowBatch(int rowCapacity) {
+        rowCapacity = Math.max(1, rowCapacity);
+        rowIndexes = new int[rowCapacity];
+        rowStarts = new int[rowCapacity + 1];
+        int cellCapacity = rowCapacity * 8;
+        columns = new int[cellCapacity];
+        types = new byte[cellCapacity];
+        numbers = new double[cellCapacity];
+        formats = new CellFormat[cellCapacity];
+        values = new String[cellCapacity];
+    }
+
+    /** 本批行数据所属的sheet */
+    @Nullable
+    public SheetInfo getSheet() {
+        return sheet;
+    }
+
+    /** 行数 */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 第row行在sheet中的行序号
+     * @param row 本批中的位置，从0开始计数
+     */
+    public int getRowIndex(int row) {
+        checkRow(row);
+        return rowIndexes[row];
+    }
+
+    /** 第row行中存在的单元格数量 */
+    public int getCellCount(int row) {
+        checkRow(row);
+        return rowStarts[row + 1] - rowStarts[row];
+    }
+
+    /**
+     * 第row行中第cell个单元格的列序号
+     * @param cell 单元格在本行中的位置，从0开始计数
+     */
+    public int getColumn(int row, int cell) {
+        return columns[cellPosition(row, cell)];
+    }
+
+    /** 第row行中第cell个单元格的类型，见{@link CellRow.CellType} */
+    public int getType(int row, int cell) {
+        return types[cellPosition(row, cell)];
+    }
+
+    /** 第row行中第cell个单元格的数值；布尔值为1或0，日期为excel中的日期序列号，其他类型为0 */
+    public double getDouble(int row, int cell) {
+        return numbers[cellPosition(row, cell)];
+    }
+
+    /** 第row行中第cell个单元格的数字格式，不是数值、日期时返回null */
+    @Nullable
+    public CellFormat getFormat(int row, int cell) {
+        return formats[cellPosition(row, cell)];
+    }
+
+    /** 第row行中第cell个单元格的字符串，数值按数字格式转换 */
+    @NonNull
+    public String getString(int row, int cell) {
+        return stringAt(cellPosition(row, cell));
+    }
+
+    /**
+     * 按列序号获取第row行中单元格的字符串
+     * @return 单元格不存在时返回null
+     */
+    @Nullable
+    public String getValue(int row, int column) {
+        checkRow(row);
+        int position = Arrays.binarySearch(columns, rowStarts[row], rowStarts[row + 1], column);
+        return position >= 0 ? stringAt(position) : null;
+    }
+
+    /** 复制第row行中存在的单元格，按列序号排列 */
+    @NonNull
+    public List<String> getRow(int row) {
+        checkRow(row);
+        int start = rowStarts[row];
+        int end = rowStarts[row + 1];
+        List<String> list = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            list.add(stringAt(i));
+        }
+        return list;
+    }
+
+    /**
+     * 清空所有行，数组保留下来复用
+     */
+    public void clear() {
+        //不再持有上一批的字符串和格式
+        Arrays.fill(values, 0, cellCount, null);
+        Arrays.fill(formats, 0, cellCount, null);
+        sheet = null;
+        formatter = null;
+        size = 0;
+        cellCount = 0;
+    }
+
+    /**
+     * 追加一行，复制单元格的类型和值，数值不会在这里转换为字符串
+     * @throws IllegalArgumentException 与本批中已有的行不属于同一张sheet
+     */
+    public void addRow(@NonNull CellRow row) {
+        if (size > 0 && row.getSheet() != sheet) {
+            throw new IllegalArgumentException("同一批行数据必须属于同一张sheet");
+        }
+        if (size + 1 >= rowStarts.length) {
+            rowIndexes = Arrays.copyOf(rowIndexes, rowIndexes.length * 2);
+            rowStarts = Arrays.copyOf(rowStarts, rowIndexes.length + 1);
+        }
+        int count = row.getCellCount();
+        if (cellCount + count > values.length) {
+            int capacity = Math.max(values.length * 2, cellCount + count);
+            columns = Arrays.copyOf(columns, capacity);
+            types = Arrays.copyOf(types, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            formats = Arrays.copyOf(formats, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        sheet = row.getSheet();
+        date1904 = row.isDate1904();
+        formatter = row.getFormatter();
+        rowIndexes[size] = row.getRowIndex();
+        rowStarts[size] = cellCount;
+        CellRow.Cursor cursor = row.cursor();
+        while (cursor.next()) {
+            int type = cursor.type();
+            columns[cellCount] = cursor.column();
+            types[cellCount] = (byte) type;
+            numbers[cellCount] = cursor.getDouble();
+            formats[cellCount] = cursor.getFormat();
+            //字符串、错误直接引用，数值在读取字符串时才转换
+            values[cellCount] = type == CellRow.CellType.STRING || type == CellRow.CellType.ERROR ? cursor.getString() : null;
+            cellCount++;
+        }
+        size++;
+        rowStarts[size] = cellCount;
+    }
+
+    @NonNull
+    private String stringAt(int position) {
+        switch (types[position]) {
+            case CellRow.CellType.STRING:
+            case CellRow.CellType.ERROR:
+                return values[position];
+            case CellRow.CellType.BOOLEAN:
+                return numbers[position] != 0 ? "TRUE" : "FALSE";
+            case CellRow.CellType.NUMBER:
+            case CellRow.CellType.DATE:
+                //转换后缓存，同一个单元格只转换一次
+                if (values[position] == null) {
+                    values[position] = CellRow.formatNumber(numbers[position], types[position], formats[position],
+                            date1904, formatter);
+                }
+                return values[position];
+            case CellRow.CellType.BLANK:
+            default:
+                return "";
+        }
+    }
+
+    private int cellPosition(int row, int cell) {
+        checkRow(row);
+        int position = rowStarts[row] + cell;
+        if (cell < 0 || position >= rowStarts[row + 1]) {
+            throw new IndexOutOfBoundsException("cell: " + cell + ", count: " + getCellCount(row));
+        }
+        return position;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Created in 2020/5/16 15:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 以字符串列表的形式读取{@link CellRow}中的单元格，不复制任何数据。
+ *
+ * <pre>
+ * 1、用于{@link com.qxtx.idea.ideaexcel.poi.parser.ReadOptions.Builder#setReuseRow(boolean)}时，整个读取过程只有一个对象，
+ *   内容只在onRowRead回调期间有效，回调返回后会被下一行覆盖，需要保留时调用{@link #copy()}，不要直接保存这个对象；
+ * 2、用于{@link com.qxtx.idea.ideaexcel.poi.parser.ReadOptions.Builder#setFillColumnGaps(boolean)}时，
+ *   get(i)为第i列的内容，空缺的列在读取时返回空字符串，不会按列数分配内存；
+ * 3、只读，不支持修改。
+ * 单元格在调用{@link #get(int)}时才转换为字符串，没有读取的单元格不会产生字符串。
+ * </pre>
+ */
+public final class RowList extends AbstractList<String> implements RandomAccess {
+
+    /** [true]按列序号读取，空缺的列返回空字符串  [false]只包含存在的单元格 */
+    private final boolean fillGaps;
+
+    private CellRow row;
+
+    public RowList() {
+        this(false);
+    }
+
+    public RowList(boolean fillGaps) {
+        this.fillGaps = fillGaps;
+    }
+
+    /** 绑定到新的一行 */
+    public void bind(@NonNull CellRow row) {
+        this.row = row;
+    }
+
+    @Override
+    public String get(int index) {
+        int size = size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        if (!fillGaps) {
+            return row.getStringAt(index);
+        }
+        String value = row.getString(index);
+        return value == null ? "" : value;
+    }
+
+    @Override
+    public int size() {
+        if (row == null) {
+            return 0;
+        }
+        return fillGaps ? row.getColumnCount() : row.getCellCount();
+    }
+
+    /** 复制当前行的内容，返回的List不会被后续的行覆盖 */
+    @NonNull
+    public List<String> copy() {
+        return new ArrayList<>(this);
+    }
+}
@@ -0,0 +1,93 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Created in 2020/5/15 15:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 表格中一张sheet的基本信息
+ *
+ * <pre>
+ * 行/列序号从0开始计数，范围为闭区间；未知或sheet为空时为-1。
+ * 范围来自表格文件中记录的尺寸（xlsx的dimension，xls的DIMENSIONS记录），可能与实际数据不完全一致，只能作为参考。
+ * csv文件只有一张sheet，序号为0，名称为文件名。
+ * </pre>
+ */
+public final class SheetInfo {
+
+    /** sheet在表格中的序号，从0开始计数 */
+    private final int index;
+
+    /** sheet名称 */
+    private final String name;
+
+    private final int firstRow;
+
+    private final int lastRow;
+
+    private final int firstColumn;
+
+    private final int lastColumn;
+
+    public SheetInfo(int index, @NonNull String name) {
+        this(index, name, -1, -1, -1, -1);
+    }
+
+    public SheetInfo(int index, @NonNull String name, int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        this.index = index;
+        this.name = name;
+        this.firstRow = firstRow;
+        this.lastRow = lastRow;
+        this.firstColumn = firstColumn;
+        this.lastColumn = lastColumn;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    public int getFirstColumn() {
+        return firstColumn;
+    }
+
+    public int getLastColumn() {
+        return lastColumn;
+    }
+
+    /** 行数，未知时为0 */
+    public int getRowCount() {
+        return lastRow < 0 ? 0 : lastRow - firstRow + 1;
+    }
+
+    /** 列数，未知时为0 */
+    public int getColumnCount() {
+        return lastColumn < 0 ? 0 : lastColumn - firstColumn + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "SheetInfo{" +
+                "index=" + index +
+                ", name='" + name + '\'' +
+                ", firstRow=" + firstRow +
+                ", lastRow=" + lastRow +
+                ", firstColumn=" + firstColumn +
+                ", lastColumn=" + lastColumn +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package com.qxtx.idea.ideaexcel.poi.callback;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+
+import java.util.List;
+
+/**
+ * Created in 2020/5/18 15:00
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 异步读取时按批交付行数据的回调，见{@link com.qxtx.idea.ideaexcel.poi.parser.ExcelReader#readAsync}。
+ *
+ * <pre>
+ * 1、回调在消费线程中依次执行，不会并发调用，解析在另一个线程中进行；
+ * 2、回调执行得慢时解析线程随之等待，不会无限制地缓存行数据；
+ * 3、回调抛出的异常会停止读取，并通过读取结果的Future抛出。
+ * </pre>
+ */
+public interface IAsyncReadCallback {
+
+    /**
+     * 读取到一批行数据
+     * @param rows 按读取顺序排列，除最后一批外，每一批的行数相同；列表和其中的行都可以保留
+     */
+    void onRows(@NonNull List<CellRow> rows) throws Exception;
+}
@@ -0,0 +1,31 @@
+package com.qxtx.idea.ideaexcel.poi.callback;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.RowBatch;
+
+/**
+ * Created in 2020/5/19 9:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按批读取表格数据的回调，每N行回调一次，减少逐行回调的开销。
+ *
+ * <pre>
+ * 1、回调在调用read的线程中依次执行；
+ * 2、同一批中的行都属于同一张sheet，一张sheet结束时不满N行的部分也会回调；
+ * 3、batch对象在多批之间复用，只在回调期间有效。
+ * 原有的逐行回调可以通过{@link ReadCallbackBatchAdapter}接收按批的数据。
+ * </pre>
+ *
+ * @see com.qxtx.idea.ideaexcel.poi.parser.ExcelReader#read(String, com.qxtx.idea.ideaexcel.poi.parser.ReadOptions, int, IBatchReadCallback)
+ */
+public interface IBatchReadCallback {
+
+    /**
+     * 读取到一批行数据
+     * @param firstRowIndex 本批第一行的行序号，即batch.getRowIndex(0)
+     * @param batch 本批行数据，至少有一行
+     */
+    void onRows(int firstRowIndex, @NonNull RowBatch batch);
+}
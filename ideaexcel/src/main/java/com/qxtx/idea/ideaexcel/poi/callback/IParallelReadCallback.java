@@ -0,0 +1,41 @@
+package com.qxtx.idea.ideaexcel.poi.callback;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+
+import java.util.List;
+
+/**
+ * Created in 2020/5/16 9:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 多线程读取多张sheet时的回调，每一行数据都带有所属的sheet。
+ *
+ * <pre>
+ * 注意：
+ * 1、并行读取时，所有方法都可能在多个工作线程中同时被调用，实现必须是线程安全的；
+ * 2、同一张sheet的回调在同一个线程中按顺序执行：{@link #onSheetStart(SheetInfo)}、若干次{@link #onRowRead}、
+ *   {@link #onSheetEnd(SheetInfo)}，不同sheet的回调会交替出现；
+ * 3、不支持并行读取的格式（xls、csv）或者并行线程数为1时，在调用read的线程中依次回调。
+ * </pre>
+ *
+ * @see com.qxtx.idea.ideaexcel.poi.parser.ReadOptions.Builder#setSheetParallelism(int)
+ */
+public interface IParallelReadCallback {
+
+    /** 开始读取一张sheet */
+    void onSheetStart(@NonNull SheetInfo sheet);
+
+    /**
+     * 读取到一行表格数据
+     * @param sheet 行数据所属的sheet
+     * @param rowIndex 行序号，在每张sheet中都从0开始计数
+     * @param row 表格中一行数据内容
+     */
+    void onRowRead(@NonNull SheetInfo sheet, int rowIndex, @NonNull List<String> row);
+
+    /** 一张sheet读取结束 */
+    void onSheetEnd(@NonNull SheetInfo sheet);
+}
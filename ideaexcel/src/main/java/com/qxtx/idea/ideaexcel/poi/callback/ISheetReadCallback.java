@@ -0,0 +1,23 @@
+package com.qxtx.idea.ideaexcel.poi.callback;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+
+/**
+ * Created in 2020/5/15 15:35
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按sheet读取表格数据的回调。
+ * 每张被选中的sheet依次回调：{@link #onSheetStart(SheetInfo)}、若干次{@link #onRowRead}、{@link #onSheetEnd(SheetInfo)}，
+ * 行序号在每张sheet中都从0开始计数
+ */
+public interface ISheetReadCallback extends IReadCallback {
+
+    /** 开始读取一张sheet */
+    void onSheetStart(@NonNull SheetInfo sheet);
+
+    /** 一张sheet读取结束 */
+    void onSheetEnd(@NonNull SheetInfo sheet);
+}
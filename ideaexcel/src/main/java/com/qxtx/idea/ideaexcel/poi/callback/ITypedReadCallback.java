@@ -0,0 +1,31 @@
+package com.qxtx.idea.ideaexcel.poi.callback;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+
+/**
+ * Created in 2020/5/16 11:50
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 读取带类型的表格数据的回调，单元格的值不会被转换为字符串。
+ *
+ * <pre>
+ * 注意：
+ * 1、每次回调的row对象都可能被下一行复用，需要在回调结束后保留时调用{@link CellRow#copy()}；
+ * 2、行所属的sheet通过{@link CellRow#getSheet()}获取；
+ * 3、csv中的单元格都是字符串类型。
+ * </pre>
+ */
+public interface ITypedReadCallback {
+
+    /**
+     * 读取到一行表格数据
+     * @param row 表格中一行数据内容
+     */
+    void onRowRead(@NonNull CellRow row);
+
+    /** 表格读取结束，所有的行都已经回调，文件不存在或者读取过程中发生异常时也会调用 */
+    void onFinished();
+}
@@ -0,0 +1,23 @@
+package com.qxtx.idea.ideaexcel.poi.callback;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+
+/**
+ * Created in 2020/5/22 20:50
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按sheet读取带类型的表格数据的回调，与{@link ISheetReadCallback}对应。
+ * 每张被选中的sheet依次回调：{@link #onSheetStart(SheetInfo)}、若干次{@link #onRowRead}、{@link #onSheetEnd(SheetInfo)}，
+ * 没有任何行的sheet也会回调开始和结束，需要按sheet汇总数据时不必比较每一行的{@link com.qxtx.idea.ideaexcel.poi.bean.CellRow#getSheet()}
+ */
+public interface ITypedSheetReadCallback extends ITypedReadCallback {
+
+    /** 开始读取一张sheet */
+    void onSheetStart(@NonNull SheetInfo sheet);
+
+    /** 一张sheet读取结束，读取被取消或者发生异常时不会回调 */
+    void onSheetEnd(@NonNull SheetInfo sheet);
+}
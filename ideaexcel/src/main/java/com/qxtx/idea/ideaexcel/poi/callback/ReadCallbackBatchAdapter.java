@@ -0,0 +1,29 @@
+package com.qxtx.idea.ideaexcel.poi.callback;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.RowBatch;
+
+/**
+ * Created in 2020/5/19 10:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 把按批的回调转换为逐行的{@link IReadCallback}，用于兼容原有的回调实现。
+ * 每一行都复制为一个新的List，不会调用{@link IReadCallback#onFinished()}
+ */
+public final class ReadCallbackBatchAdapter implements IBatchReadCallback {
+
+    private final IReadCallback callback;
+
+    public ReadCallbackBatchAdapter(@NonNull IReadCallback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public void onRows(int firstRowIndex, @NonNull RowBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            callback.onRowRead(batch.getRowIndex(i), batch.getRow(i));
+        }
+    }
+}
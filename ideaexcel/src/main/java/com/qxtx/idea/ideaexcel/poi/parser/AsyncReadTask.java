@@ -0,0 +1,72 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.ReadResult;
+import com.qxtx.idea.ideaexcel.poi.callback.IAsyncReadCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Created in 2020/5/18 15:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 异步读取的消费端：从{@link RowIterator}中拉取行数据，凑满一批后交给外部回调。
+ *
+ * <pre>
+ * 解析线程与消费线程之间的缓冲区能保存两批行数据，外部处理一批数据时，解析线程可以继续准备下一批，
+ * 缓冲区满时解析线程等待，内存占用只与批的大小有关。
+ * 消费线程被中断（取消Future）或者外部回调抛出异常时，关闭读取，解析线程随即结束。
+ * </pre>
+ *
+ * @see ExcelReader#readAsync
+ */
+final class AsyncReadTask implements Callable<ReadResult> {
+
+    private final ExcelReader reader;
+
+    private final String path;
+
+    private final ReadOptions options;
+
+    private final int batchRows;
+
+    private final IAsyncReadCallback callback;
+
+    AsyncReadTask(@NonNull ExcelReader reader, @NonNull String path, @NonNull ReadOptions options,
+                  int batchRows, @NonNull IAsyncReadCallback callback) {
+        this.reader = reader;
+        this.path = path;
+        this.options = options;
+        this.batchRows = Math.max(1, batchRows);
+        this.callback = callback;
+    }
+
+    @Override
+    public ReadResult call() throws Exception {
+        long rowCount = 0;
+        int batchCount = 0;
+        try (RowIterator iterator = reader.iterator(path, options, batchRows * 2)) {
+            List<CellRow> batch = new ArrayList<>(batchRows);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchRows) {
+                    callback.onRows(batch);
+                    rowCount += batch.size();
+                    batchCount++;
+                    batch = new ArrayList<>(batchRows);
+                }
+            }
+            if (!batch.isEmpty()) {
+                callback.onRows(batch);
+                rowCount += batch.size();
+                batchCount++;
+            }
+        }
+        return new ReadResult(rowCount, batchCount);
+    }
+}
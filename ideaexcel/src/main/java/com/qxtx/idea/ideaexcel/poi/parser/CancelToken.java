@@ -0,0 +1,46 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Created in 2020/5/17 9:40
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 取消一次正在进行的读取，见{@link ReadOptions.Builder#setCancelToken(CancelToken)}。
+ *
+ * <pre>
+ * 可以在任意线程中调用{@link #cancel()}，包括在读取的回调中调用。
+ * 解析器在每一行（xls为每一条记录）之间检查取消状态，取消后立即停止解析并关闭文件，read方法随后返回，不会再有行数据的回调。
+ * 取消是不可撤销的，每次读取使用一个新的对象。
+ * </pre>
+ */
+public final class CancelToken {
+
+    /** 上级对象，上级被取消时本对象也视为已取消 */
+    @Nullable
+    private final CancelToken parent;
+
+    private volatile boolean cancelled;
+
+    public CancelToken() {
+        this(null);
+    }
+
+    /**
+     * 内部使用：既可以单独取消，又随外部传入的对象一起取消，如多张sheet并行解析时，任意一张失败后停止其他sheet
+     * @param parent 外部传入的对象，为null时同{@link #CancelToken()}
+     */
+    CancelToken(@Nullable CancelToken parent) {
+        this.parent = parent;
+    }
+
+    /** 取消读取 */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+}
@@ -0,0 +1,108 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+
+import java.util.BitSet;
+
+/**
+ * Created in 2020/5/16 17:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 只读取需要的列，
+ * 见{@link ReadOptions.Builder#setColumns(int...)}、{@link ReadOptions.Builder#setColumnNames(String...)}。
+ *
+ * <pre>
+ * 解析器在读取每个单元格之前通过{@link RowSelector}检查，未选中的单元格直接跳过：
+ * 不会创建字符串，不会查找共享字符串，也不会读取数字格式。
+ *
+ * 按表头名称选择列时，每张sheet中第一个非空的行作为表头：
+ * 1、表头行的所有单元格都会被读取，读取结束后按名称确定需要的列，表头行本身也只保留选中的列，见{@link #retain(CellRow)}；
+ * 2、表头中找不到的名称会被忽略。
+ *
+ * 每张sheet使用一个独立的对象，不能在多个线程之间共享。
+ * </pre>
+ */
+final class ColumnProjection {
+
+    /** 已确定需要读取的列 */
+    private final BitSet columns = new BitSet();
+
+    /** 需要从表头中查找的列名，表头读取后置为null */
+    private String[] names;
+
+    private ColumnProjection(@Nullable int[] indexes, @Nullable String[] names) {
+        if (indexes != null) {
+            for (int index : indexes) {
+                if (index >= 0) {
+                    columns.set(index);
+                }
+            }
+        }
+        this.names = names;
+    }
+
+    /**
+     * 为一张sheet创建列选择
+     * @return 没有配置任何列时返回null，即读取全部列
+     */
+    @Nullable
+    static ColumnProjection create(@NonNull ReadOptions options) {
+        int[] indexes = options.getColumns();
+        String[] names = options.getColumnNames();
+        if (indexes == null && names == null) {
+            return null;
+        }
+        return new ColumnProjection(indexes, names);
+    }
+
+    /** 是否还在等待表头 */
+    boolean isHeaderPending() {
+        return names != null;
+    }
+
+    /** 某一列是否需要读取，等待表头时读取全部列 */
+    boolean isSelected(int column) {
+        return names != null || columns.get(column);
+    }
+
+    /**
+     * 一行读取结束，在交给外部之前调用。
+     * 如果是表头，按列名确定需要读取的列
+     * @return [true]本行是表头
+     */
+    boolean resolveHeader(@NonNull CellRow row) {
+        if (names == null || row.getCellCount() == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < row.getCellCount(); i++) {
+            String header = row.getStringAt(i).trim();
+            for (String name : names) {
+                if (name.equals(header)) {
+                    columns.set(row.getColumn(i));
+                    break;
+                }
+            }
+        }
+        names = null;
+        return true;
+    }
+
+    /** 去掉本行中未选中的单元格 */
+    void retain(@NonNull CellRow row) {
+        row.retainColumns(columns);
+    }
+
+    /**
+     * 已确定需要读取的列，等待表头时调用无意义
+     * @return 复制的对象
+     */
+    @NonNull
+    BitSet getColumns() {
+        return (BitSet) columns.clone();
+    }
+}
@@ -0,0 +1,104 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.ColumnarTable;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedSheetReadCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created in 2020/5/19 15:40
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 在读取过程中把每张sheet构建为按列保存的{@link ColumnarTable}，适用于读取整张sheet后做统计、聚合。
+ *
+ * <pre>
+ * 行数据在回调中直接写入列中，不会保存行对象，也不会把数值转换为字符串。
+ * 可以与{@link ReadOptions.Builder#setColumns(int...)}、{@link ReadOptions.Builder#setRowFilters(RowFilter...)}
+ * 一起使用，只构建需要的列和行，表头不受行过滤条件影响。没有任何行的sheet不会生成表。
+ *
+ * 示例：
+ * ColumnarSink sink = new ColumnarSink(true);
+ * ExcelReader.getInstance().read(path, options, sink);
+ * ColumnarTable table = sink.getTable();
+ * double[] amounts = table.getColumn("金额").getDoubles();
+ * </pre>
+ */
+public final class ColumnarSink implements ITypedSheetReadCallback {
+
+    /** 每张sheet的第一行是否为表头 */
+    private final boolean header;
+
+    private final List<ColumnarTable> tables = new ArrayList<>();
+
+    /** 正在构建的sheet */
+    private SheetInfo sheet;
+
+    private ColumnarTable.Builder builder;
+
+    /**
+     * @param header [true]每张sheet的第一行作为表头，用作列名
+     */
+    public ColumnarSink(boolean header) {
+        this.header = header;
+    }
+
+    /** 是否需要表头，需要时读取器让表头跳过行过滤条件 */
+    boolean hasHeader() {
+        return header;
+    }
+
+    @Override
+    public void onSheetStart(@NonNull SheetInfo sheet) {
+        finishSheet();
+        this.sheet = sheet;
+    }
+
+    @Override
+    public void onRowRead(@NonNull CellRow row) {
+        //读取到第一行时才创建，没有任何行的sheet不生成表
+        if (builder == null) {
+            builder = new ColumnarTable.Builder(sheet, header);
+        }
+        builder.addRow(row);
+    }
+
+    @Override
+    public void onSheetEnd(@NonNull SheetInfo sheet) {
+        finishSheet();
+    }
+
+    /** 读取被取消或者发生异常时没有sheet结束的回调，已经读取的行同样生成表 */
+    @Override
+    public void onFinished() {
+        finishSheet();
+    }
+
+    /** 所有已经读取的sheet，按读取顺序排列，读取结束后才包含最后一张sheet */
+    @NonNull
+    public List<ColumnarTable> getTables() {
+        return new ArrayList<>(tables);
+    }
+
+    /**
+     * 第一张已经读取的sheet
+     * @return 没有读取到任何行时返回null
+     */
+    @Nullable
+    public ColumnarTable getTable() {
+        return tables.isEmpty() ? null : tables.get(0);
+    }
+
+    private void finishSheet() {
+        if (builder != null) {
+            tables.add(builder.build());
+            builder = null;
+        }
+    }
+}
@@ -1,88 +1,82 @@
-package com.qxtx.idea.ideaexcel.poi.parser;
-
-import android.support.annotation.NonNull;
-import android.util.Log;
-
-import com.qxtx.idea.ideaexcel.poi.bean.RowBean;
-import com.qxtx.idea.ideaexcel.poi.callback.IWriteCallback;
-
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.streaming.SXSSFSheet;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.util.List;
-
-/**
- * Created in 2020/4/29 13:32
- *
- * @author QXTX-WORK
- * <p>
- * Description
- */
-public class ExcelWriter {
-
-    private volatile static ExcelWriter instance;
-
-    public static ExcelWriter getInstance() {
-        if (instance == null) {
-            synchronized (ExcelWriter.class) {
-                if (instance == null) {
-                    instance = new ExcelWriter();
-                }
-            }
-        }
-        return instance;
-    }
-
-    private ExcelWriter() { }
-
-    /**
-     * 导出数据到xlsx表格
-     * @deprecated 仅作为测试用
-     */
-    @Deprecated
-    public void writeXlsx(List<RowBean> rowList, @NonNull String excelPath, @NonNull IWriteCallback callback) {
-        File file = new File(excelPath);
-        if (file.isDirectory()) {
-            Log.e("ExcelParser", "路径为目录，不支持");
-            return ;
-        }
-        file.mkdirs();
-
-        callback.onWriteStart();
-
-        if (file.exists()) {
-            file.delete();
-        }
-
-        SXSSFWorkbook swb = new SXSSFWorkbook(new XSSFWorkbook(), 1000);
-        SXSSFSheet sheet = (SXSSFSheet) swb.createSheet("info");
-
-        for (int i = 0; i < rowList.size(); i++) {
-            RowBean bean = rowList.get(i);
-            Row dataRow = sheet.createRow(i);
-            dataRow.createCell(0).setCellValue(bean.getName());
-            dataRow.createCell(1).setCellValue(bean.getId());
-            dataRow.createCell(2).setCellValue(bean.getCensusType());
-            dataRow.createCell(3).setCellValue(bean.getAddress());
-        }
-
-        FileOutputStream fos = null;
-        try {
-            fos = new FileOutputStream(file);
-            swb.write(fos);
-            swb.close();
-            fos.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-            callback.onWriteError();
-            return ;
-        }
-
-        callback.onWriteFinished();
-    }
-}
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.qxtx.idea.ideaexcel.poi.bean.RowBean;
+import com.qxtx.idea.ideaexcel.poi.callback.IWriteCallback;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.XlsxStreamWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Created in 2020/4/29 13:32
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description
+ */
+public class ExcelWriter {
+
+    /** 导出的sheet名称 */
+    private static final String SHEET_NAME = "info";
+
+    private volatile static ExcelWriter instance;
+
+    public static ExcelWriter getInstance() {
+        if (instance == null) {
+            synchronized (ExcelWriter.class) {
+                if (instance == null) {
+                    instance = new ExcelWriter();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private ExcelWriter() { }
+
+    /**
+     * 导出数据到xlsx表格，按行直接生成xml写入压缩文件，内存占用不随行数增长，见{@link XlsxStreamWriter}。
+     * 超过一张sheet的最大行数时，继续写入新的sheet：info、info2、info3...
+     */
+    public void writeXlsx(List<RowBean> rowList, @NonNull String excelPath, @NonNull IWriteCallback callback) {
+        File file = new File(excelPath);
+        if (file.isDirectory()) {
+            Log.e("ExcelParser", "路径为目录，不支持");
+            return ;
+        }
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        callback.onWriteStart();
+
+        try (XlsxStreamWriter writer = new XlsxStreamWriter(new FileOutputStream(file))) {
+            int sheetCount = 1;
+            writer.startSheet(SHEET_NAME);
+            for (int i = 0; i < rowList.size(); i++) {
+                if (writer.getRowCount() == XlsxStreamWriter.MAX_ROWS) {
+                    writer.startSheet(SHEET_NAME + (++sheetCount));
+                }
+                RowBean bean = rowList.get(i);
+                writer.startRow();
+                writer.writeString(bean.getName());
+                writer.writeString(bean.getId());
+                writer.writeString(bean.getCensusType());
+                writer.writeString(bean.getAddress());
+                writer.endRow();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            callback.onWriteError();
+            return ;
+        }
+
+        callback.onWriteFinished();
+    }
+}
@@ -0,0 +1,111 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.parser.ExcelReader.Suffix;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.zip.ZipFile;
+
+/**
+ * Created in 2020/5/14 17:05
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 通过文件开头的内容（magic bytes）识别表格文件的真实格式，与文件后缀名无关。
+ *
+ * <pre>
+ * 识别规则：
+ * 1、以OLE2文件头[D0 CF 11 E0 A1 B1 1A E1]开头：xls；
+ * 2、以zip文件头[PK\3\4]开头，并且包含[Content_Types].xml：xlsx；
+ * 3、是zip文件但不包含[Content_Types].xml：无法识别；
+ * 4、其他情况都当作文本：csv。
+ *
+ * 通常[Content_Types].xml是zip中的第一个文件，只需要读取文件开头的几KB数据就能确定格式；
+ * 否则再通过zip末尾的中央目录查找，也不需要解压任何数据。
+ * </pre>
+ */
+public final class FormatDetector {
+
+    /** 读取文件开头的数据量 */
+    private static final int HEAD_SIZE = 4 * 1024;
+
+    private static final byte[] OLE2_MAGIC = {
+            (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
+    };
+
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 0x03, 0x04};
+
+    private static final String CONTENT_TYPES = "[Content_Types].xml";
+
+    private FormatDetector() {
+    }
+
+    /**
+     * 识别文件格式
+     * @return 文件格式对应的后缀，见{@link Suffix}；返回null表示无法识别
+     */
+    @Nullable
+    public static String detect(@NonNull File file) throws IOException {
+        byte[] head = new byte[HEAD_SIZE];
+        int len = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while (len < HEAD_SIZE && (n = in.read(head, len, HEAD_SIZE - len)) > 0) {
+                len += n;
+            }
+        }
+
+        if (startsWith(head, len, OLE2_MAGIC)) {
+            return Suffix.XLS;
+        }
+        if (startsWith(head, len, ZIP_MAGIC)) {
+            return isOoxml(file, head, len) ? Suffix.XLSX : null;
+        }
+        return Suffix.CSV;
+    }
+
+    private static boolean isOoxml(@NonNull File file, @NonNull byte[] head, int len) {
+        //zip的本地文件头中直接记录了文件名
+        if (indexOf(head, len, CONTENT_TYPES.getBytes(Charset.forName("US-ASCII"))) >= 0) {
+            return true;
+        }
+
+        try (ZipFile zip = new ZipFile(file)) {
+            return zip.getEntry(CONTENT_TYPES) != null;
+        } catch (IOException e) {
+            ExcelReader.log("E", "无法读取zip文件：" + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    private static boolean startsWith(@NonNull byte[] data, int len, @NonNull byte[] prefix) {
+        if (len < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(@NonNull byte[] data, int len, @NonNull byte[] target) {
+        outer:
+        for (int i = 0; i <= len - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (data[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
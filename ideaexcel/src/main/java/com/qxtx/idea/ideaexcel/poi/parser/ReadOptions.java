@@ -0,0 +1,503 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.RowList;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.ISharedStringsStore;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Created in 2020/5/13 11:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 读取表格的配置项，创建后不可修改，可以在多次读取、多个线程之间共享。
+ *
+ * <pre>
+ * 示例：
+ * ReadOptions options = new ReadOptions.Builder()
+ *         .setCharset(Charset.forName("utf-8"))
+ *         .build();
+ * ExcelReader.getInstance().read(path, options, callback);
+ * </pre>
+ */
+public final class ReadOptions {
+
+    /** 默认配置 */
+    public static final ReadOptions DEFAULT = new Builder().build();
+
+    /** csv字符串驻留缓存的最大槽位数量 */
+    public static final int MAX_CSV_STRING_CACHE_SIZE = 1 << 20;
+
+    private final Charset charset;
+
+    private final int csvParallelism;
+
+    private final boolean csvOrdered;
+
+    private final int csvStringCacheSize;
+
+    private final int sharedStringsStorage;
+
+    private final File tempDir;
+
+    private final int[] sheetIndexes;
+
+    private final String[] sheetNames;
+
+    private final int sheetParallelism;
+
+    private final boolean reuseRow;
+
+    private final boolean fillColumnGaps;
+
+    private final int[] columns;
+
+    private final String[] columnNames;
+
+    private final int startRow;
+
+    private final int maxRows;
+
+    private final CancelToken cancelToken;
+
+    private final RowFilter[] rowFilters;
+
+    private ReadOptions(@NonNull Builder builder) {
+        this.charset = builder.charset;
+        this.csvParallelism = builder.csvParallelism;
+        this.csvOrdered = builder.csvOrdered;
+        this.csvStringCacheSize = builder.csvStringCacheSize;
+        this.sharedStringsStorage = builder.sharedStringsStorage;
+        this.tempDir = builder.tempDir;
+        this.sheetIndexes = builder.sheetIndexes;
+        this.sheetNames = builder.sheetNames;
+        this.sheetParallelism = builder.sheetParallelism;
+        this.reuseRow = builder.reuseRow;
+        this.fillColumnGaps = builder.fillColumnGaps;
+        this.columns = builder.columns;
+        this.columnNames = builder.columnNames;
+        this.startRow = builder.startRow;
+        this.maxRows = builder.maxRows;
+        this.cancelToken = builder.cancelToken;
+        this.rowFilters = builder.rowFilters;
+    }
+
+    /**
+     * csv文件的字符编码
+     * @return [null]根据BOM和文件开头的内容自动识别
+     */
+    @Nullable
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * 读取csv文件的并行线程数
+     * @return [1]单线程读取  [大于1]多线程读取，见{@link com.qxtx.idea.ideaexcel.poi.parser.csv.ParallelCsvReader}
+     */
+    public int getCsvParallelism() {
+        return csvParallelism;
+    }
+
+    /** 多线程读取csv文件时，是否按文件中的顺序交付行数据 */
+    public boolean isCsvOrdered() {
+        return csvOrdered;
+    }
+
+    /**
+     * csv单元格字符串驻留缓存的槽位数量
+     * @return [0]不使用缓存，每个单元格都创建新的字符串
+     */
+    public int getCsvStringCacheSize() {
+        return csvStringCacheSize;
+    }
+
+    /** xlsx共享字符串表的存储方式，见{@link ISharedStringsStore.Storage} */
+    @ISharedStringsStore.Storage
+    public int getSharedStringsStorage() {
+        return sharedStringsStorage;
+    }
+
+    /**
+     * 临时文件所在的目录
+     * @return [null]使用系统默认的临时目录
+     */
+    @Nullable
+    public File getTempDir() {
+        return tempDir;
+    }
+
+    /**
+     * 判断一张sheet是否需要读取。没有指定任何sheet时读取全部sheet，否则序号或名称符合其中之一即可
+     * @param index sheet序号，从0开始计数
+     * @param name sheet名称
+     */
+    public boolean isSheetSelected(int index, @NonNull String name) {
+        if (sheetIndexes == null && sheetNames == null) {
+            return true;
+        }
+        if (sheetIndexes != null) {
+            for (int i : sheetIndexes) {
+                if (i == index) {
+                    return true;
+                }
+            }
+        }
+        if (sheetNames != null) {
+            for (String n : sheetNames) {
+                if (n.equals(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 并行读取xlsx中多张sheet的线程数
+     * @return [1]依次读取  [大于1]每张sheet在一个工作线程中读取，见{@link com.qxtx.idea.ideaexcel.poi.callback.IParallelReadCallback}
+     */
+    public int getSheetParallelism() {
+        return sheetParallelism;
+    }
+
+    /**
+     * 是否复用行数据对象
+     * @return [true]每一行都回调同一个{@link RowList}对象，只在回调期间有效  [false]每一行都回调一个新的List
+     */
+    public boolean isReuseRow() {
+        return reuseRow;
+    }
+
+    /**
+     * 字符串列表形式的行数据中，单元格是否放在真实的列序号上
+     * @return [true]空缺的列以空字符串补齐  [false]只包含存在的单元格，按顺序排列
+     */
+    public boolean isFillColumnGaps() {
+        return fillColumnGaps;
+    }
+
+    /**
+     * 需要读取的列序号
+     * @return [null]没有按序号选择列
+     */
+    @Nullable
+    public int[] getColumns() {
+        return columns == null ? null : Arrays.copyOf(columns, columns.length);
+    }
+
+    /**
+     * 需要读取的列的表头名称
+     * @return [null]没有按表头名称选择列
+     */
+    @Nullable
+    public String[] getColumnNames() {
+        return columnNames == null ? null : Arrays.copyOf(columnNames, columnNames.length);
+    }
+
+    /** 每张sheet中开始读取的行序号，从0开始计数 */
+    public int getStartRow() {
+        return startRow;
+    }
+
+    /**
+     * 每张sheet最多读取的行数
+     * @return [Integer.MAX_VALUE]不限制
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /** 用于取消读取的对象 */
+    @Nullable
+    public CancelToken getCancelToken() {
+        return cancelToken;
+    }
+
+    /**
+     * 行过滤条件
+     * @return 没有过滤条件时返回null
+     */
+    @Nullable
+    public RowFilter[] getRowFilters() {
+        return rowFilters == null ? null : Arrays.copyOf(rowFilters, rowFilters.length);
+    }
+
+    /** 以当前配置为基础创建Builder */
+    @NonNull
+    public Builder newBuilder() {
+        return new Builder(this);
+    }
+
+    public static final class Builder {
+
+        private Charset charset;
+
+        private int csvParallelism = 1;
+
+        private boolean csvOrdered = true;
+
+        private int csvStringCacheSize;
+
+        private int sharedStringsStorage = ISharedStringsStore.Storage.HEAP;
+
+        private File tempDir;
+
+        private int[] sheetIndexes;
+
+        private String[] sheetNames;
+
+        private int sheetParallelism = 1;
+
+        private boolean reuseRow;
+
+        private boolean fillColumnGaps;
+
+        private int[] columns;
+
+        private String[] columnNames;
+
+        private int startRow;
+
+        private int maxRows = Integer.MAX_VALUE;
+
+        private CancelToken cancelToken;
+
+        private RowFilter[] rowFilters;
+
+        public Builder() { }
+
+        private Builder(@NonNull ReadOptions options) {
+            this.charset = options.charset;
+            this.csvParallelism = options.csvParallelism;
+            this.csvOrdered = options.csvOrdered;
+            this.csvStringCacheSize = options.csvStringCacheSize;
+            this.sharedStringsStorage = options.sharedStringsStorage;
+            this.tempDir = options.tempDir;
+            this.sheetIndexes = options.sheetIndexes;
+            this.sheetNames = options.sheetNames;
+            this.sheetParallelism = options.sheetParallelism;
+            this.reuseRow = options.reuseRow;
+            this.fillColumnGaps = options.fillColumnGaps;
+            this.columns = options.columns;
+            this.columnNames = options.columnNames;
+            this.startRow = options.startRow;
+            this.maxRows = options.maxRows;
+            this.cancelToken = options.cancelToken;
+            this.rowFilters = options.rowFilters;
+        }
+
+        /**
+         * 指定csv文件的字符编码，不指定时根据BOM和文件开头的内容自动识别
+         * @see com.qxtx.idea.ideaexcel.poi.parser.csv.CsvCharsetDetector
+         */
+        @NonNull
+        public Builder setCharset(@Nullable Charset charset) {
+            this.charset = charset;
+            return this;
+        }
+
+        /**
+         * 使用多线程读取较大的csv文件，每个线程负责文件中的一块数据。
+         * 仅对兼容ASCII的字符编码（utf-8、gbk等）生效，且要求双引号只出现在用双引号包裹的单元格中。
+         * @param parallelism 并行线程数，小于等于1时单线程读取，默认为1
+         */
+        @NonNull
+        public Builder setCsvParallelism(int parallelism) {
+            this.csvParallelism = Math.max(1, parallelism);
+            return this;
+        }
+
+        /**
+         * 多线程读取csv文件时，是否按文件中的顺序交付行数据
+         * 不按顺序交付时，{@link #setStartRow(int)}仍然按真实的行序号跳过前面的行；
+         * 设置了{@link #setMaxRows(int)}时无法确定先交付的是哪些行，此时忽略本设置，总是按顺序交付
+         * @param ordered [true]按顺序交付，默认值  [false]哪一批数据先解析完就先交付，行序号仍然是真实的行序号
+         */
+        @NonNull
+        public Builder setCsvOrdered(boolean ordered) {
+            this.csvOrdered = ordered;
+            return this;
+        }
+
+        /**
+         * 读取csv时对单元格字符串做驻留，内容相同的单元格返回同一个String对象。
+         * 适合取值很少的列（如类型、状态、城市）很多的文件，减少字符串的创建和回调方保留行数据时占用的堆内存。
+         * 缓存大小固定，取值很多的列只会替换槽位，不会让缓存增长，见{@link com.qxtx.idea.ideaexcel.poi.parser.csv.StringCache}
+         * @param size 槽位数量，向上取整为2的幂，最大为{@link ReadOptions#MAX_CSV_STRING_CACHE_SIZE}；小于等于0时不使用缓存，默认为0
+         */
+        @NonNull
+        public Builder setCsvStringCacheSize(int size) {
+            this.csvStringCacheSize = Math.max(0, Math.min(size, MAX_CSV_STRING_CACHE_SIZE));
+            return this;
+        }
+
+        /**
+         * 指定xlsx共享字符串表的存储方式。不重复的字符串很多时（如身份证号、地址），
+         * 使用{@link ISharedStringsStore.Storage#MAPPED_FILE}避免堆内存不足；
+         * {@link ISharedStringsStore.Storage#OFF_HEAP}只在JVM中有效，Android的直接内存同样占用Java堆
+         * @param storage 见{@link ISharedStringsStore.Storage}，默认为{@link ISharedStringsStore.Storage#HEAP}
+         */
+        @NonNull
+        public Builder setSharedStringsStorage(@ISharedStringsStore.Storage int storage) {
+            this.sharedStringsStorage = storage;
+            return this;
+        }
+
+        /**
+         * 指定临时文件所在的目录，Android中建议使用Context.getCacheDir()
+         * @param dir 为null时使用系统默认的临时目录
+         */
+        @NonNull
+        public Builder setTempDir(@Nullable File dir) {
+            this.tempDir = dir;
+            return this;
+        }
+
+        /**
+         * 按序号指定需要读取的sheet，未指定的sheet会被直接跳过，不会解析其中的数据。
+         * 与{@link #setSheetNames(String...)}同时使用时，符合其中之一即可
+         * @param indexes sheet序号，从0开始计数；不传时清除按序号的选择
+         */
+        @NonNull
+        public Builder setSheetIndexes(@Nullable int... indexes) {
+            this.sheetIndexes = indexes == null || indexes.length == 0 ? null : Arrays.copyOf(indexes, indexes.length);
+            return this;
+        }
+
+        /**
+         * 按名称指定需要读取的sheet
+         * @param names sheet名称，区分大小写；不传时清除按名称的选择
+         * @see #setSheetIndexes(int...)
+         */
+        @NonNull
+        public Builder setSheetNames(@Nullable String... names) {
+            this.sheetNames = names == null || names.length == 0 ? null : Arrays.copyOf(names, names.length);
+            return this;
+        }
+
+        /**
+         * 使用多线程同时读取xlsx中的多张sheet，每张sheet在一个工作线程中解析，共享字符串表和样式表在所有线程间共享。
+         * 仅在使用{@link com.qxtx.idea.ideaexcel.poi.callback.IParallelReadCallback}读取时生效
+         * @param parallelism 并行线程数，小于等于1时依次读取，默认为1
+         */
+        @NonNull
+        public Builder setSheetParallelism(int parallelism) {
+            this.sheetParallelism = Math.max(1, parallelism);
+            return this;
+        }
+
+        /**
+         * 复用行数据对象，避免每一行都创建新的List，行数很多而列数较少时效果最明显。
+         * 开启后{@link com.qxtx.idea.ideaexcel.poi.callback.IReadCallback#onRowRead}中的row是同一个{@link RowList}对象，
+         * 内容只在回调期间有效，需要保留时调用{@link RowList#copy()}。
+         * @param reuse 默认为false
+         */
+        @NonNull
+        public Builder setReuseRow(boolean reuse) {
+            this.reuseRow = reuse;
+            return this;
+        }
+
+        /**
+         * 字符串列表形式的行数据中，单元格放在真实的列序号上，空缺的列以空字符串补齐，
+         * 即row.get(i)总是第i列的内容，row.size()为最后一个单元格的列序号加1。
+         * 补齐是在读取时按需进行的，行数据只保存存在的单元格，很宽的稀疏sheet也不会按列数分配内存。
+         * @param fill 默认为false，只包含存在的单元格，按顺序排列
+         */
+        @NonNull
+        public Builder setFillColumnGaps(boolean fill) {
+            this.fillColumnGaps = fill;
+            return this;
+        }
+
+        /**
+         * 只读取指定的列，其他列的单元格在解析时直接跳过，不会创建字符串，也不会格式化数值。
+         * 与{@link #setColumnNames(String...)}同时使用时，符合其中之一即可。
+         * 字符串列表形式的行数据只包含选中的列，按列序号排列；需要保持列的位置时使用{@link #setFillColumnGaps(boolean)}
+         * @param columns 列序号，从0开始计数；不传时清除按序号的选择
+         * @see ColumnProjection
+         */
+        @NonNull
+        public Builder setColumns(@Nullable int... columns) {
+            this.columns = columns == null || columns.length == 0 ? null : Arrays.copyOf(columns, columns.length);
+            return this;
+        }
+
+        /**
+         * 按表头名称只读取指定的列，每张sheet中第一个非空的行作为表头，表头中找不到的名称会被忽略
+         * @param names 表头名称，区分大小写，与表头单元格去掉首尾空白后比较；不传时清除按名称的选择
+         * @see #setColumns(int...)
+         */
+        @NonNull
+        public Builder setColumnNames(@Nullable String... names) {
+            this.columnNames = names == null || names.length == 0 ? null : Arrays.copyOf(names, names.length);
+            return this;
+        }
+
+        /**
+         * 每张sheet从指定的行开始读取，之前的行不会回调，其中的单元格也不会被读取
+         * @param startRow 行序号，从0开始计数，默认为0
+         * @see RowWindow
+         */
+        @NonNull
+        public Builder setStartRow(int startRow) {
+            this.startRow = Math.max(0, startRow);
+            return this;
+        }
+
+        /**
+         * 每张sheet最多读取的行数，达到上限后立即停止解析这张sheet，适用于预览大文件的前若干行
+         * @param maxRows 行数，小于等于0时不限制，默认不限制
+         * @see RowWindow
+         */
+        @NonNull
+        public Builder setMaxRows(int maxRows) {
+            this.maxRows = maxRows <= 0 ? Integer.MAX_VALUE : maxRows;
+            return this;
+        }
+
+        /**
+         * 设置用于取消读取的对象，调用{@link CancelToken#cancel()}后读取立即停止。
+         * 可以在回调中调用，用于读取到需要的数据后提前结束
+         * @param token 每次读取使用一个新的对象，为null时不能取消
+         */
+        @NonNull
+        public Builder setCancelToken(@Nullable CancelToken token) {
+            this.cancelToken = token;
+            return this;
+        }
+
+        /**
+         * 只读取符合所有过滤条件的行，条件列的单元格在解析时立即检查，不符合条件的行不再读取其余单元格，也不会回调。
+         * 条件列不需要包含在{@link #setColumns(int...)}中；按表头名称选择列时，表头行总是用于确定列，但不符合过滤条件时同样不会回调。
+         * {@link #setMaxRows(int)}只统计符合条件的行
+         * @param filters 过滤条件；不传时清除过滤条件
+         * @see RowFilter
+         */
+        @NonNull
+        public Builder setRowFilters(@Nullable RowFilter... filters) {
+            if (filters == null || filters.length == 0) {
+                this.rowFilters = null;
+                return this;
+            }
+            for (RowFilter filter : filters) {
+                if (filter == null) {
+                    throw new IllegalArgumentException("过滤条件不能为null");
+                }
+            }
+            this.rowFilters = Arrays.copyOf(filters, filters.length);
+            return this;
+        }
+
+        @NonNull
+        public ReadOptions build() {
+            return new ReadOptions(this);
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.IParallelReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.IReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedSheetReadCallback;
+import com.qxtx.idea.ideaexcel.poi.parser.ExcelReader.Suffix;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.ByteCsvTokenizer;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.CsvCharsetDetector;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.CsvSpliterator;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.CsvTokenizer;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.ICsvTokenizer;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.ParallelCsvReader;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.StringCache;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.BufferSharedStringsStore;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.HeapSharedStringsStore;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.ISharedStringsStore;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.SharedStringsParser;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.SheetXmlScanner;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.WorkbookPropertiesParser;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created in 2020/5/14 15:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 一次表格读取的解析会话，持有本次读取过程中的所有可变状态。
+ *
+ * <pre>
+ * {@link ExcelReader}本身只持有不可变的配置，每次调用read都会创建一个新的会话，
+ * 因此同一个ExcelReader可以在多个线程中同时读取多个文件，互不影响。
+ * 会话只能使用一次，不能在多个线程之间共享。
+ * </pre>
+ */
+final class ReadSession {
+
+    /** 文件大小超过此值时，才会按配置使用多线程读取csv */
+    private static final long PARALLEL_CSV_MIN_SIZE = 4 * 1024 * 1024;
+
+    private final File file;
+
+    private final ReadOptions options;
+
+    /** 每一行数据的输出，字符串形式的回调通过{@link RowListAdapter}转换 */
+    private final ITypedReadCallback callback;
+
+    /** csv单元格的字符串驻留缓存，本次读取中所有分词器共用，未配置时为null */
+    @Nullable
+    private final StringCache stringCache;
+
+    /** 回调需要每张sheet的表头，表头行不检查行过滤条件，见{@link RowSelector#create(ReadOptions, boolean)} */
+    private final boolean headerRow;
+
+    ReadSession(@NonNull File file, @NonNull ReadOptions options, @NonNull ITypedReadCallback callback) {
+        this.file = file;
+        this.options = options;
+        this.callback = callback;
+        this.stringCache = options.getCsvStringCacheSize() > 0 ? new StringCache(options.getCsvStringCacheSize()) : null;
+        this.headerRow = callback instanceof ColumnarSink && ((ColumnarSink) callback).hasHeader();
+    }
+
+    /**
+     * 通过文件内容识别真实的格式，选择对应的解析方案，只解析一次。
+     * 目标解析结果：表格中每行数据按类型保存到{@link CellRow}中
+     */
+    void parse() {
+        try {
+            parseOrThrow();
+        } catch (Exception e) {
+            log("E", "读取表格发生异常：" + e);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 同{@link #parse()}，读取过程中的异常直接抛出，由调用者处理
+     */
+    void parseOrThrow() throws Exception {
+        String format = FormatDetector.detect(file);
+        if (format == null) {
+            log("E", "不支持的文件格式：" + file.getPath());
+            return;
+        }
+
+        log("I", "开始解析：" + format + ",file=" + file.getPath());
+        switch (format) {
+            case Suffix.XLS:
+                parseXls();
+                break;
+            case Suffix.XLSX:
+                parseXlsx();
+                break;
+            case Suffix.CSV:
+                parseCsv();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 打开可以按块拆分的csv读取，用于并行的Stream。
+     * 只有csv文件、兼容ASCII的字符编码、没有设置起始行和行数上限时才能拆分，其他情况返回null
+     */
+    @RequiresApi(Build.VERSION_CODES.N)
+    @Nullable
+    CsvSpliterator openCsvSpliterator() throws Exception {
+        if (!Suffix.CSV.equals(FormatDetector.detect(file))
+                || options.getStartRow() > 0 || options.getMaxRows() != Integer.MAX_VALUE) {
+            return null;
+        }
+        SheetInfo sheet = new SheetInfo(0, file.getName());
+        if (!options.isSheetSelected(sheet.getIndex(), sheet.getName())) {
+            return null;
+        }
+
+        byte[] head = readHead(CsvCharsetDetector.DETECT_SIZE);
+        Charset charset = options.getCharset();
+        if (charset == null) {
+            charset = CsvCharsetDetector.detect(head, head.length);
+        }
+        if (!CsvCharsetDetector.isAsciiCompatible(charset)) {
+            return null;
+        }
+        int bomLength = CsvCharsetDetector.bomLength(head, head.length, charset);
+        //按块拆分的数量与并行Stream的线程数相匹配
+        int parallelism = Math.max(options.getCsvParallelism(), Runtime.getRuntime().availableProcessors());
+        return createParallelCsvReader(charset, bomLength, parallelism).spliterator(sheet);
+    }
+
+    /**
+     * 解析xls表格内容。
+     * 以只读方式直接打开文件，poi按需读取OLE2容器中的数据块，Workbook流也是在解析过程中逐步读取的，
+     * 不会把整个文件读入内存，内存占用与文件大小基本无关。
+     * 先读取全局数据（共享字符串、数字格式等），再依次跳到每张选中的sheet读取，见{@link XlsWorkbookReader}
+     */
+    private void parseXls() throws Exception {
+        try (XlsWorkbookReader workbook = new XlsWorkbookReader(file)) {
+            XlsListener xlsListener = new XlsListener(callback);
+            MissingRecordAwareHSSFListener listener = new MissingRecordAwareHSSFListener(xlsListener);
+            FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(listener);
+            xlsListener.setFormatListener(formatListener);
+
+            workbook.readGlobals(formatListener);
+            for (int i = 0; i < workbook.getSheetCount() && !isCancelled(); i++) {
+                String name = workbook.getSheetName(i);
+                if (!options.isSheetSelected(i, name)) {
+                    continue;
+                }
+
+                SheetInfo sheet = new SheetInfo(i, name);
+                onSheetStart(sheet);
+                RowSelector selector = RowSelector.create(options, headerRow);
+                xlsListener.setSheet(sheet, selector);
+                workbook.readSheet(i, formatListener, selector);
+                onSheetEnd(sheet);
+            }
+        }
+    }
+
+    /** 解析xlsx表格内容 */
+    private void parseXlsx() throws Exception {
+        OPCPackage opcp = OPCPackage.open(file, PackageAccess.READ);
+        try (ISharedStringsStore sharedStrings = openSharedStrings(opcp)) {
+            XSSFReader reader = new XSSFReader(opcp);
+            //读取表格内容
+            readSheets(reader, sharedStrings);
+        } finally {
+            //只读打开，不需要保存
+            opcp.revert();
+        }
+    }
+
+    /**
+     * 按配置的存储方式读取共享字符串表，见{@link ReadOptions#getSharedStringsStorage()}。
+     * 没有任何字符串的表格中不存在sharedStrings.xml，此时返回空表
+     */
+    @NonNull
+    private ISharedStringsStore openSharedStrings(@NonNull OPCPackage opcp) throws Exception {
+        ISharedStringsStore store;
+        switch (options.getSharedStringsStorage()) {
+            case ISharedStringsStore.Storage.OFF_HEAP:
+                store = BufferSharedStringsStore.offHeap();
+                break;
+            case ISharedStringsStore.Storage.MAPPED_FILE:
+                store = BufferSharedStringsStore.mappedFile(options.getTempDir());
+                break;
+            case ISharedStringsStore.Storage.HEAP:
+            default:
+                store = new HeapSharedStringsStore();
+                break;
+        }
+
+        try {
+            List<PackagePart> parts = opcp.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+            if (!parts.isEmpty()) {
+                try (InputStream in = parts.get(0).getInputStream()) {
+                    SharedStringsParser.parse(in, store);
+                }
+            }
+        } catch (Exception e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /** 核心的读取表格数据方法，依次读取每张选中的sheet，未选中的sheet不会被解析 */
+    private void readSheets(@NonNull XSSFReader reader, @NonNull ISharedStringsStore sharedStrings) throws Exception {
+        XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+        if (!iterator.hasNext()) {
+            log("I", "可以正确服务表格，但未找到任何有效的sheet");
+            return;
+        }
+
+        StylesTable styles = reader.getStylesTable();
+        boolean date1904;
+        try (InputStream in = reader.getWorkbookData()) {
+            date1904 = WorkbookPropertiesParser.isDate1904(in);
+        }
+
+        IParallelReadCallback parallelTarget = getParallelTarget();
+        if (options.getSheetParallelism() > 1 && parallelTarget != null) {
+            readSheetsParallel(iterator, styles, sharedStrings, date1904, parallelTarget);
+            return;
+        }
+
+        for (int index = 0; iterator.hasNext() && !isCancelled(); index++) {
+            try (InputStream inputStream = iterator.next()) {
+                String name = iterator.getSheetName();
+                if (!options.isSheetSelected(index, name)) {
+                    continue;
+                }
+
+                SheetInfo sheet = new SheetInfo(index, name);
+                onSheetStart(sheet);
+                new SheetXmlScanner(styles, sharedStrings, sheet, date1904, RowSelector.create(options, headerRow), callback)
+                        .parse(inputStream);
+                onSheetEnd(sheet);
+            }
+        }
+    }
+
+    /**
+     * 每张sheet在一个工作线程中解析，每个线程使用独立的xml扫描器和回调转换对象，共享字符串表和样式表只读共享。
+     * 在当前线程中等待所有sheet解析完成，任意一张sheet解析失败时取消其他sheet，并抛出第一个异常：
+     * 还未开始的sheet不再解析，正在解析的sheet通过内部的取消对象在下一行停止
+     */
+    private void readSheetsParallel(@NonNull XSSFReader.SheetIterator iterator, @NonNull final StylesTable styles,
+                                    @NonNull final ISharedStringsStore sharedStrings, final boolean date1904,
+                                    @NonNull final IParallelReadCallback target) throws Exception {
+        //外部取消或者任意一张sheet失败时，所有sheet都停止
+        final CancelToken failure = new CancelToken(options.getCancelToken());
+        final ReadOptions sheetOptions = options.newBuilder().setCancelToken(failure).build();
+        ForkJoinPool pool = new ForkJoinPool(options.getSheetParallelism());
+        List<Future<?>> futures = new ArrayList<>();
+        List<InputStream> streams = new ArrayList<>();
+        try {
+            for (int index = 0; iterator.hasNext() && !failure.isCancelled(); index++) {
+                final InputStream inputStream = iterator.next();
+                String name = iterator.getSheetName();
+                if (!options.isSheetSelected(index, name)) {
+                    inputStream.close();
+                    continue;
+                }
+
+                streams.add(inputStream);
+                final SheetInfo sheet = new SheetInfo(index, name);
+                futures.add(pool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try (InputStream in = inputStream) {
+                            if (failure.isCancelled()) {
+                                return null;
+                            }
+                            RowListAdapter sheetCallback =
+                                    new RowListAdapter(new SheetTaggingCallback(target, sheet), options);
+                            target.onSheetStart(sheet);
+                            new SheetXmlScanner(styles, sharedStrings, sheet, date1904,
+                                    RowSelector.create(sheetOptions), sheetCallback).parse(in);
+                            target.onSheetEnd(sheet);
+                        } catch (Exception | Error e) {
+                            failure.cancel();
+                            throw e;
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        } finally {
+            //取消还未开始的sheet，正在解析的sheet在下一行停止，等待它们结束，保证read返回后不会再有回调
+            failure.cancel();
+            pool.shutdownNow();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            //还未开始就被取消的任务不会关闭自己的输入流，已经关闭的流重复关闭没有影响
+            for (InputStream inputStream : streams) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    log("E", "关闭sheet输入流失败：" + e);
+                }
+            }
+        }
+    }
+
+    /** 解析csv文件内容，整个文件作为一张sheet */
+    private void parseCsv() throws Exception {
+        SheetInfo sheet = new SheetInfo(0, file.getName());
+        if (!options.isSheetSelected(sheet.getIndex(), sheet.getName())) {
+            return;
+        }
+
+        onSheetStart(sheet);
+        readCsv(sheet);
+        onSheetEnd(sheet);
+    }
+
+    private void readCsv(@NonNull final SheetInfo sheet) throws Exception {
+        byte[] head = readHead(CsvCharsetDetector.DETECT_SIZE);
+        Charset charset = options.getCharset();
+        if (charset == null) {
+            charset = CsvCharsetDetector.detect(head, head.length);
+        }
+        int bomLength = CsvCharsetDetector.bomLength(head, head.length, charset);
+        log("I", "csv字符编码：" + charset.name());
+
+        //兼容ASCII的字符编码才能直接按字节切分文件，文件太小时多线程没有意义
+        if (options.getCsvParallelism() > 1 && file.length() >= PARALLEL_CSV_MIN_SIZE
+                && CsvCharsetDetector.isAsciiCompatible(charset)) {
+            final RowWindow window = RowWindow.create(options);
+            final ParallelCsvReader reader = createParallelCsvReader(charset, bomLength, options.getCsvParallelism());
+            //工作线程直接分词为带类型的行，与单线程读取一样由回调方补齐空缺的列、复用行对象
+            if (window == null) {
+                reader.read(sheet, callback);
+                return;
+            }
+            reader.read(sheet, new ITypedReadCallback() {
+                @Override
+                public void onRowRead(@NonNull CellRow row) {
+                    if (!window.isStopped() && window.accept(row.getRowIndex())) {
+                        callback.onRowRead(row);
+                        window.onRowRead();
+                    }
+                    if (window.isStopped()) {
+                        reader.stop();
+                    }
+                }
+
+                @Override
+                public void onFinished() {
+                }
+            });
+            return;
+        }
+
+        RowSelector selector = RowSelector.create(options, headerRow);
+        CellRow row = new CellRow();
+        try (ICsvTokenizer tokenizer = openCsvTokenizer(charset, bomLength)) {
+            //遍历表格中的所有行，单元格只在交给外部时才转换为字符串；达到行数上限或者被取消后不再读取
+            while ((selector == null || !selector.isStopped()) && tokenizer.nextRow()) {
+                //范围之外的行、不符合过滤条件的行不解码任何单元格（条件列除外）
+                if (selector != null && (!selector.beginRow(tokenizer.getRowIndex()) || !selector.testCsvRow(tokenizer))) {
+                    continue;
+                }
+                row.reset(sheet, tokenizer.getRowIndex(), false, null);
+                int cellCount = tokenizer.getCellCount();
+                for (int i = 0; i < cellCount; i++) {
+                    //未选中的列不解码
+                    if (selector == null || selector.isCellSelected(i)) {
+                        row.addString(i, tokenizer.getCellString(i));
+                    }
+                }
+
+                if (selector == null) {
+                    callback.onRowRead(row);
+                } else if (selector.endRow(row)) {
+                    callback.onRowRead(row);
+                    selector.onRowRead();
+                }
+            }
+        }
+    }
+
+    /**
+     * 创建多线程读取csv的对象，设置需要读取的列和行过滤条件。
+     * 按表头名称选择列时，先读取表头确定需要读取的列
+     */
+    @NonNull
+    private ParallelCsvReader createParallelCsvReader(@NonNull Charset charset, int bomLength,
+                                                      int parallelism) throws IOException {
+        //按完成顺序交付时无法确定前若干行是哪些行，有行数上限时总是按顺序交付
+        boolean ordered = options.isCsvOrdered() || options.getMaxRows() != Integer.MAX_VALUE;
+        ParallelCsvReader reader = new ParallelCsvReader(file, charset, bomLength, parallelism, ordered);
+        reader.setStringCache(stringCache);
+        reader.setCancelToken(options.getCancelToken());
+        ColumnProjection projection = ColumnProjection.create(options);
+        final RowFilter[] filters = options.getRowFilters();
+        //多线程分词前先确定需要读取的列，以及不检查过滤条件的表头所在的行
+        long headerIndex = -1;
+        if ((projection != null && projection.isHeaderPending()) || (headerRow && filters != null)) {
+            headerIndex = readCsvHeader(projection, charset, bomLength);
+        }
+        if (projection != null) {
+            reader.setColumns(projection.getColumns());
+        }
+        //过滤条件在工作线程中分词后立即检查，不符合条件的行不解码
+        if (filters != null) {
+            final long exempt = headerRow ? headerIndex : -1;
+            reader.setRowTester(new ParallelCsvReader.IRowTester() {
+                @Override
+                public boolean test(@NonNull ICsvTokenizer tokenizer, long rowIndex) {
+                    return rowIndex == exempt || RowFilter.testAll(filters, tokenizer);
+                }
+            });
+        }
+        return reader;
+    }
+
+    /**
+     * 读取csv的表头，即起始行之后第一个非空的行，按表头名称确定需要读取的列
+     * @return 表头的行序号，没有表头时返回-1
+     */
+    private long readCsvHeader(@Nullable ColumnProjection projection, @NonNull Charset charset,
+                               int bomLength) throws IOException {
+        CellRow row = new CellRow();
+        try (ICsvTokenizer tokenizer = openCsvTokenizer(charset, bomLength)) {
+            while (tokenizer.nextRow()) {
+                if (tokenizer.getRowIndex() < options.getStartRow() || tokenizer.getCellCount() == 0) {
+                    continue;
+                }
+                if (projection != null && projection.isHeaderPending()) {
+                    row.reset(null, tokenizer.getRowIndex(), false, null);
+                    int cellCount = tokenizer.getCellCount();
+                    for (int i = 0; i < cellCount; i++) {
+                        row.addString(i, tokenizer.getCellString(i));
+                    }
+                    projection.resolveHeader(row);
+                }
+                return tokenizer.getRowIndex();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 根据字符编码选择csv分词器：
+     * 兼容ASCII的字符编码（utf-8、gbk等）直接按字节切分，只解码单元格内容；其他字符编码（如utf-16）先解码再切分。
+     */
+    @NonNull
+    private ICsvTokenizer openCsvTokenizer(@NonNull Charset charset, int bomLength) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            //跳过BOM
+            long skip = bomLength;
+            while (skip > 0) {
+                skip -= in.skip(skip);
+            }
+
+            ICsvTokenizer tokenizer = CsvCharsetDetector.isAsciiCompatible(charset)
+                    ? new ByteCsvTokenizer(in, charset)
+                    : new CsvTokenizer(new InputStreamReader(in, charset));
+            tokenizer.setStringCache(stringCache);
+            return tokenizer;
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /** 读取文件开头的一块数据 */
+    @NonNull
+    private byte[] readHead(int size) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] head = new byte[size];
+            int len = 0;
+            int n;
+            while (len < size && (n = in.read(head, len, size - len)) > 0) {
+                len += n;
+            }
+            return len == size ? head : Arrays.copyOf(head, len);
+        }
+    }
+
+    private boolean isCancelled() {
+        CancelToken token = options.getCancelToken();
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * @return 需要多线程读取sheet的回调，不是{@link IParallelReadCallback}时返回null
+     */
+    @Nullable
+    private IParallelReadCallback getParallelTarget() {
+        if (callback instanceof RowListAdapter) {
+            IReadCallback target = ((RowListAdapter) callback).getCallback();
+            if (target instanceof SheetTaggingCallback) {
+                return ((SheetTaggingCallback) target).getTarget();
+            }
+        }
+        return null;
+    }
+
+    private void onSheetStart(@NonNull SheetInfo sheet) {
+        if (callback instanceof ITypedSheetReadCallback) {
+            ((ITypedSheetReadCallback) callback).onSheetStart(sheet);
+        }
+    }
+
+    private void onSheetEnd(@NonNull SheetInfo sheet) {
+        if (callback instanceof ITypedSheetReadCallback) {
+            ((ITypedSheetReadCallback) callback).onSheetEnd(sheet);
+        }
+    }
+
+    private static void log(String type, @NonNull String msg) {
+        ExcelReader.log(type, msg);
+    }
+}
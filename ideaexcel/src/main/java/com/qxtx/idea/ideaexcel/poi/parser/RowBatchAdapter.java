@@ -0,0 +1,65 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.RowBatch;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.IBatchReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedSheetReadCallback;
+
+/**
+ * Created in 2020/5/19 10:00
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 把解析器输出的每一行收集到{@link RowBatch}中，凑满一批或者sheet结束时交给{@link IBatchReadCallback}，
+ * 最后不满一批的行在读取结束时交付
+ */
+final class RowBatchAdapter implements ITypedSheetReadCallback {
+
+    private final IBatchReadCallback callback;
+
+    private final int batchRows;
+
+    /** 所有批复用同一个对象 */
+    private final RowBatch batch;
+
+    RowBatchAdapter(@NonNull IBatchReadCallback callback, int batchRows) {
+        this.callback = callback;
+        this.batchRows = Math.max(1, batchRows);
+        this.batch = new RowBatch(this.batchRows);
+    }
+
+    @Override
+    public void onSheetStart(@NonNull SheetInfo sheet) {
+    }
+
+    @Override
+    public void onRowRead(@NonNull CellRow row) {
+        batch.addRow(row);
+        if (batch.size() >= batchRows) {
+            flush();
+        }
+    }
+
+    /** 同一批中的行必须属于同一张sheet，sheet结束时交付不满一批的行 */
+    @Override
+    public void onSheetEnd(@NonNull SheetInfo sheet) {
+        flush();
+    }
+
+    @Override
+    public void onFinished() {
+        flush();
+    }
+
+    /** 交付已经收集的行 */
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        callback.onRows(batch.getRowIndex(0), batch);
+        batch.clear();
+    }
+}
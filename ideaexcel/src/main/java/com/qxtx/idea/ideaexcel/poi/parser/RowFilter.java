@@ -0,0 +1,155 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.ICsvTokenizer;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Created in 2020/5/17 14:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按某一列的值过滤行，见{@link ReadOptions.Builder#setRowFilters(RowFilter...)}。
+ *
+ * <pre>
+ * 过滤条件在解析过程中逐个单元格地检查，不符合条件的行被直接丢弃，不会回调：
+ * 1、xlsx、xls：条件列的单元格读取后立即检查，不符合时本行后面的单元格不再读取；
+ * 2、csv：一行分词后先解码条件列检查，不符合时本行其他单元格都不会解码为字符串。
+ *
+ * 比较规则：
+ * 1、{@link #equalTo(int, String)}、{@link #startsWith(int, String)}：与单元格的字符串比较，区分大小写，
+ *   数值按数字格式转换后比较（与excel中显示的内容一致），不存在的单元格视为空字符串；
+ * 2、{@link #between(int, double, double)}：数值、日期直接比较，字符串去掉首尾空白后按数值解析，
+ *   无法解析的字符串、布尔值、不存在的单元格都不符合条件。
+ *
+ * 示例：只读取第2列为"北京"且第5列在[18, 60]之间的行
+ * new ReadOptions.Builder()
+ *         .setRowFilters(RowFilter.equalTo(1, "北京"), RowFilter.between(4, 18, 60))
+ *         .build();
+ * </pre>
+ */
+public final class RowFilter {
+
+    @Retention(RetentionPolicy.SOURCE)
+    private @interface Operator {
+        int EQUAL_TO = 0;
+        int STARTS_WITH = 1;
+        int BETWEEN = 2;
+    }
+
+    private final int column;
+
+    @Operator
+    private final int operator;
+
+    private final String text;
+
+    private final double min;
+
+    private final double max;
+
+    private RowFilter(int column, @Operator int operator, @Nullable String text, double min, double max) {
+        if (column < 0) {
+            throw new IllegalArgumentException("列序号不能小于0：" + column);
+        }
+        this.column = column;
+        this.operator = operator;
+        this.text = text;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * 单元格的字符串等于value
+     * @param column 列序号，从0开始计数
+     */
+    @NonNull
+    public static RowFilter equalTo(int column, @NonNull String value) {
+        return new RowFilter(column, Operator.EQUAL_TO, value, 0, 0);
+    }
+
+    /**
+     * 单元格的字符串以prefix开头
+     * @param column 列序号，从0开始计数
+     */
+    @NonNull
+    public static RowFilter startsWith(int column, @NonNull String prefix) {
+        return new RowFilter(column, Operator.STARTS_WITH, prefix, 0, 0);
+    }
+
+    /**
+     * 单元格的数值在[min, max]之间
+     * @param column 列序号，从0开始计数
+     */
+    @NonNull
+    public static RowFilter between(int column, double min, double max) {
+        return new RowFilter(column, Operator.BETWEEN, null, min, max);
+    }
+
+    /** 条件所在的列 */
+    public int getColumn() {
+        return column;
+    }
+
+    /** 检查一行中条件所在列的单元格 */
+    boolean test(@NonNull CellRow row) {
+        if (operator != Operator.BETWEEN) {
+            return test(row.getString(column));
+        }
+
+        switch (row.getType(column)) {
+            case CellRow.CellType.NUMBER:
+            case CellRow.CellType.DATE:
+                double value = row.getDouble(column);
+                return value >= min && value <= max;
+            case CellRow.CellType.STRING:
+                return test(row.getString(column));
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 检查一个字符串形式的单元格
+     * @param value 为null时表示单元格不存在
+     */
+    boolean test(@Nullable String value) {
+        switch (operator) {
+            case Operator.EQUAL_TO:
+                return text.equals(value == null ? "" : value);
+            case Operator.STARTS_WITH:
+                return (value == null ? "" : value).startsWith(text);
+            case Operator.BETWEEN:
+            default:
+                if (value == null) {
+                    return false;
+                }
+                try {
+                    double number = Double.parseDouble(value.trim());
+                    return number >= min && number <= max;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+        }
+    }
+
+    /**
+     * 检查csv分词器的当前行是否符合所有过滤条件，只解码条件列
+     * 注意：可以在多个线程中同时调用
+     */
+    static boolean testAll(@NonNull RowFilter[] filters, @NonNull ICsvTokenizer tokenizer) {
+        int cellCount = tokenizer.getCellCount();
+        for (RowFilter filter : filters) {
+            int column = filter.column;
+            if (!filter.test(column < cellCount ? tokenizer.getCellString(column) : null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,287 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.RequiresApi;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.CsvSpliterator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Created in 2020/5/18 9:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 以拉取的方式逐行读取表格，支持xls、xlsx、csv，由{@link ExcelReader#iterator(String, ReadOptions)}创建。
+ *
+ * <pre>
+ * xls和xlsx的解析器只能推送数据，因此解析在一个单独的线程中进行，行数据经过有界的缓冲区交给调用者：
+ * 1、第一次调用{@link #hasNext()}时才开始解析；
+ * 2、缓冲区满时解析线程等待，调用者处理得慢时解析也随之变慢，内存占用只与缓冲区大小有关，与sheet的大小无关；
+ * 3、行数据以小批量的形式在两个线程之间传递，减少同步的次数；
+ * 4、解析过程中的异常在{@link #hasNext()}中以{@link IllegalStateException}的形式抛出。
+ *
+ * 每一行都是独立的{@link CellRow}对象，可以保留；多张sheet的行依次返回，通过{@link CellRow#getSheet()}区分。
+ * {@link #stream()}可以把读取转换为Stream，csv文件可以按块拆分，使用parallel()时在多个线程中同时分词，
+ * 见{@link CsvSpliterator}。
+ *
+ * 注意：
+ * 1、非线程安全，只能在一个线程中遍历；
+ * 2、没有遍历完时必须调用{@link #close()}，否则解析线程会一直等待缓冲区的空位；
+ * 3、{@link ReadOptions.Builder#setCancelToken(CancelToken)}同样有效，取消后遍历随即结束。
+ *
+ * 示例：
+ * try (RowIterator iterator = ExcelReader.getInstance().iterator(path, options)) {
+ *     while (iterator.hasNext()) {
+ *         CellRow row = iterator.next();
+ *     }
+ * }
+ * </pre>
+ */
+public final class RowIterator implements Iterator<CellRow>, Closeable {
+
+    /** 缓冲区默认能保存的行数 */
+    public static final int DEFAULT_BUFFER_ROWS = 1024;
+
+    /** 每一批传递的最大行数 */
+    private static final int BATCH_ROWS = 64;
+
+    /** 解析结束的标记 */
+    private static final CellRow[] END = new CellRow[0];
+
+    /** 缓冲区满时，解析线程每隔一段时间检查一次是否已经关闭 */
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private final ReadSession session;
+
+    /** 在解析线程中收集行数据 */
+    private final Producer output;
+
+    /** 用于停止解析线程，外部设置的取消对象被取消时同样视为已取消 */
+    private final CancelToken token;
+
+    private final BlockingQueue<CellRow[]> queue;
+
+    private final int batchRows;
+
+    /** 解析线程中发生的异常 */
+    private volatile Throwable error;
+
+    private volatile boolean closed;
+
+    private Thread producer;
+
+    /** 当前正在遍历的一批行数据 */
+    private CellRow[] batch;
+
+    private int position;
+
+    private boolean finished;
+
+    /**
+     * @param bufferRows 缓冲区能保存的行数
+     */
+    RowIterator(@NonNull File file, @NonNull ReadOptions options, int bufferRows) {
+        this.token = new CancelToken(options.getCancelToken());
+        this.batchRows = Math.max(1, Math.min(BATCH_ROWS, bufferRows));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, bufferRows / batchRows));
+        ReadOptions sessionOptions = options.newBuilder().setCancelToken(token).build();
+        this.output = new Producer();
+        this.session = new ReadSession(file, sessionOptions, output);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (batch != null && position < batch.length) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        if (producer == null) {
+            start();
+        }
+
+        try {
+            batch = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("读取被中断", e);
+        }
+        position = 0;
+        if (batch == END) {
+            finished = true;
+            batch = null;
+            if (error != null) {
+                throw new IllegalStateException("读取表格发生异常", error);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public CellRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CellRow row = batch[position];
+        //已经返回的行不再持有
+        batch[position++] = null;
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * 把读取转换为Stream，关闭Stream时同时关闭读取。
+     * 没有设置起始行和行数上限、字符编码兼容ASCII的csv文件可以按块拆分，使用parallel()时在多个线程中同时分词；
+     * 其他情况按顺序遍历本对象，parallel()只会把已经读取的行分给多个线程处理。
+     * 两种情况下{@link ReadOptions.Builder#setCancelToken(CancelToken)}都有效，取消后Stream随即结束
+     * @throws IllegalStateException 已经开始遍历
+     */
+    @RequiresApi(Build.VERSION_CODES.N)
+    @NonNull
+    public Stream<CellRow> stream() {
+        if (producer != null || finished) {
+            throw new IllegalStateException("已经开始读取");
+        }
+
+        final CsvSpliterator csv;
+        try {
+            csv = session.openCsvSpliterator();
+        } catch (Exception e) {
+            throw new IllegalStateException("读取表格发生异常", e);
+        }
+        if (csv == null) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                    Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(new Runnable() {
+                        @Override
+                        public void run() {
+                            close();
+                        }
+                    });
+        }
+
+        //本对象不再使用
+        finished = true;
+        return StreamSupport.stream(csv, false)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            csv.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * 停止读取，丢弃缓冲区中的数据。
+     * 解析线程在当前行处理结束后退出，不需要等待
+     */
+    @Override
+    public void close() {
+        closed = true;
+        finished = true;
+        token.cancel();
+        batch = null;
+        queue.clear();
+    }
+
+    private void start() {
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    session.parseOrThrow();
+                    output.flush();
+                } catch (Throwable e) {
+                    error = e;
+                } finally {
+                    offer(END);
+                }
+            }
+        }, "RowIterator");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * 把一批行数据放入缓冲区，缓冲区满时等待
+     * @return [false]已经关闭，数据被丢弃
+     */
+    private boolean offer(@NonNull CellRow[] rows) {
+        while (!closed) {
+            try {
+                if (queue.offer(rows, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                token.cancel();
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** 在解析线程中收集行数据 */
+    private final class Producer implements ITypedReadCallback {
+
+        private CellRow[] pending = new CellRow[batchRows];
+
+        private int count;
+
+        @Override
+        public void onRowRead(@NonNull CellRow row) {
+            if (closed || token.isCancelled()) {
+                return;
+            }
+            pending[count++] = row.copy();
+            if (count == pending.length) {
+                CellRow[] rows = pending;
+                pending = new CellRow[batchRows];
+                count = 0;
+                if (!offer(rows)) {
+                    token.cancel();
+                }
+            }
+        }
+
+        @Override
+        public void onFinished() {
+        }
+
+        /** 解析结束，放入最后不满一批的行数据 */
+        void flush() {
+            if (count > 0) {
+                offer(Arrays.copyOf(pending, count));
+                count = 0;
+            }
+        }
+    }
+}
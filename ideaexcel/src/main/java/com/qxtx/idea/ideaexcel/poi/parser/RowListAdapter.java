@@ -0,0 +1,88 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.RowList;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.IReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.ISheetReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedSheetReadCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created in 2020/5/16 12:00
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 将带类型的行数据转换为字符串列表，交给{@link IReadCallback}。
+ * 默认只包含本行中存在的单元格，按顺序依次转换为字符串，不存在的单元格不会占位；
+ * 补齐空缺的列时，回调不复制数据的{@link RowList}，按需补齐。
+ * 复用行数据对象时，每一行都回调同一个{@link RowList}，不会创建新的List
+ */
+final class RowListAdapter implements ITypedSheetReadCallback {
+
+    private final IReadCallback callback;
+
+    /** 复用的行数据对象，为null时每一行都创建新的List */
+    private final RowList rowList;
+
+    /** 是否补齐空缺的列 */
+    private final boolean fillGaps;
+
+    RowListAdapter(@NonNull IReadCallback callback, @NonNull ReadOptions options) {
+        this.callback = callback;
+        this.fillGaps = options.isFillColumnGaps();
+        this.rowList = options.isReuseRow() ? new RowList(fillGaps) : null;
+    }
+
+    @NonNull
+    IReadCallback getCallback() {
+        return callback;
+    }
+
+    @Override
+    public void onSheetStart(@NonNull SheetInfo sheet) {
+        if (callback instanceof ISheetReadCallback) {
+            ((ISheetReadCallback) callback).onSheetStart(sheet);
+        }
+    }
+
+    @Override
+    public void onSheetEnd(@NonNull SheetInfo sheet) {
+        if (callback instanceof ISheetReadCallback) {
+            ((ISheetReadCallback) callback).onSheetEnd(sheet);
+        }
+    }
+
+    @Override
+    public void onRowRead(@NonNull CellRow row) {
+        if (rowList != null) {
+            rowList.bind(row);
+            callback.onRowRead(row.getRowIndex(), rowList);
+            return;
+        }
+
+        if (fillGaps) {
+            //复制的行数据同样是稀疏的，不会按列数分配内存
+            RowList list = new RowList(true);
+            list.bind(row.copy());
+            callback.onRowRead(row.getRowIndex(), list);
+            return;
+        }
+
+        int count = row.getCellCount();
+        List<String> rowInfo = new ArrayList<>(count);
+        CellRow.Cursor cursor = row.cursor();
+        while (cursor.next()) {
+            rowInfo.add(cursor.getString());
+        }
+        callback.onRowRead(row.getRowIndex(), rowInfo);
+    }
+
+    @Override
+    public void onFinished() {
+    }
+}
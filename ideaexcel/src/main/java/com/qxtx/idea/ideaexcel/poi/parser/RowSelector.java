@@ -0,0 +1,174 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.parser.csv.ICsvTokenizer;
+
+import java.util.BitSet;
+
+/**
+ * Created in 2020/5/17 14:40
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 解析一张sheet时，决定哪些行、哪些单元格需要读取，组合了行范围{@link RowWindow}、
+ * 列选择{@link ColumnProjection}和行过滤条件{@link RowFilter}。
+ *
+ * <pre>
+ * 解析器的调用顺序：
+ * 1、一行开始时调用{@link #beginRow(int)}，返回false时跳过整行；
+ * 2、读取每个单元格之前调用{@link #isCellSelected(int)}，返回false时跳过这个单元格，不读取它的值；
+ * 3、每个单元格保存到{@link CellRow}后调用{@link #onCellAdded(CellRow, int)}，条件列不符合过滤条件时，
+ *   本行后面的单元格都不再读取；
+ * 4、一行结束时调用{@link #endRow(CellRow)}，返回true时才交给外部，交给外部后调用{@link #onRowRead()}；
+ * 5、{@link #isStopped()}为true时立即停止解析这张sheet。
+ *
+ * 条件列即使没有被选中也会被读取，用于检查过滤条件，交给外部之前再去掉。
+ * 外部需要表头时（如{@link ColumnarSink}），起始行之后第一个非空的行作为表头，不检查过滤条件。
+ * 每张sheet使用一个独立的对象，不能在多个线程之间共享。
+ * </pre>
+ */
+public final class RowSelector {
+
+    @Nullable
+    private final RowWindow window;
+
+    @Nullable
+    private final ColumnProjection projection;
+
+    @Nullable
+    private final RowFilter[] filters;
+
+    /** 过滤条件所在的列 */
+    private final BitSet filterColumns = new BitSet();
+
+    /** 当前行是否被跳过或者已经不符合过滤条件 */
+    private boolean rowSkipped;
+
+    /** 还没有遇到外部需要的表头，表头不检查过滤条件 */
+    private boolean headerPending;
+
+    private RowSelector(@Nullable RowWindow window, @Nullable ColumnProjection projection,
+                        @Nullable RowFilter[] filters, boolean header) {
+        this.window = window;
+        this.projection = projection;
+        this.filters = filters;
+        this.headerPending = header;
+        if (filters != null) {
+            for (RowFilter filter : filters) {
+                filterColumns.set(filter.getColumn());
+            }
+        }
+    }
+
+    /**
+     * 为一张sheet创建行和单元格的选择
+     * @return 读取全部行、全部列时返回null
+     */
+    @Nullable
+    public static RowSelector create(@NonNull ReadOptions options) {
+        return create(options, false);
+    }
+
+    /**
+     * 为一张sheet创建行和单元格的选择
+     * @param header [true]外部把第一行作为表头，表头不检查过滤条件，否则表头会被过滤掉，第一行数据被当作表头
+     * @return 读取全部行、全部列时返回null
+     */
+    @Nullable
+    public static RowSelector create(@NonNull ReadOptions options, boolean header) {
+        RowWindow window = RowWindow.create(options);
+        ColumnProjection projection = ColumnProjection.create(options);
+        RowFilter[] filters = options.getRowFilters();
+        if (window == null && projection == null && filters == null) {
+            return null;
+        }
+        return new RowSelector(window, projection, filters, header);
+    }
+
+    /**
+     * 一行开始
+     * @return [false]本行不在范围内，跳过整行
+     */
+    public boolean beginRow(int rowIndex) {
+        rowSkipped = window != null && !window.accept(rowIndex);
+        return !rowSkipped;
+    }
+
+    /** 当前行的某个单元格是否需要读取 */
+    public boolean isCellSelected(int column) {
+        if (rowSkipped) {
+            return false;
+        }
+        return projection == null || projection.isSelected(column) || filterColumns.get(column);
+    }
+
+    /** 一个单元格已经保存到row中，是条件列时立即检查过滤条件 */
+    public void onCellAdded(@NonNull CellRow row, int column) {
+        if (filters == null || !filterColumns.get(column) || isHeaderPending()) {
+            return;
+        }
+        for (RowFilter filter : filters) {
+            if (filter.getColumn() == column && !filter.test(row)) {
+                rowSkipped = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在解码单元格之前检查csv的当前行，不符合过滤条件时跳过整行
+     * @return [false]不符合过滤条件
+     */
+    public boolean testCsvRow(@NonNull ICsvTokenizer tokenizer) {
+        if (filters == null || isHeaderPending()) {
+            return true;
+        }
+        rowSkipped = !RowFilter.testAll(filters, tokenizer);
+        return !rowSkipped;
+    }
+
+    /**
+     * 一行结束，确定表头，检查所有过滤条件，去掉只为检查过滤条件而读取的单元格
+     * @return [true]需要交给外部
+     */
+    public boolean endRow(@NonNull CellRow row) {
+        if (rowSkipped) {
+            return false;
+        }
+
+        boolean header = projection != null && projection.resolveHeader(row);
+        if (headerPending && row.getCellCount() > 0) {
+            headerPending = false;
+            header = true;
+        } else if (filters != null) {
+            for (RowFilter filter : filters) {
+                if (!filter.test(row)) {
+                    return false;
+                }
+            }
+        }
+        if (projection != null && (header || filters != null)) {
+            projection.retain(row);
+        }
+        return true;
+    }
+
+    /** 一行数据已经交给外部 */
+    public void onRowRead() {
+        if (window != null) {
+            window.onRowRead();
+        }
+    }
+
+    /** 是否需要停止解析这张sheet，见{@link RowWindow#isStopped()} */
+    public boolean isStopped() {
+        return window != null && window.isStopped();
+    }
+
+    private boolean isHeaderPending() {
+        return headerPending || (projection != null && projection.isHeaderPending());
+    }
+}
@@ -0,0 +1,68 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Created in 2020/5/17 9:50
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 一张sheet中需要读取的行范围，以及读取的取消状态。
+ *
+ * <pre>
+ * 1、行序号小于起始行的行直接跳过，其中的单元格不会被读取，也不会回调；
+ * 2、回调的行数达到上限，或者读取被取消后，解析器立即停止读取这张sheet，见{@link #isStopped()}。
+ * 每张sheet使用一个独立的对象，不能在多个线程之间共享。
+ * </pre>
+ *
+ * @see ReadOptions.Builder#setStartRow(int)
+ * @see ReadOptions.Builder#setMaxRows(int)
+ * @see ReadOptions.Builder#setCancelToken(CancelToken)
+ */
+final class RowWindow {
+
+    private final int startRow;
+
+    private final int maxRows;
+
+    @Nullable
+    private final CancelToken cancelToken;
+
+    /** 已回调的行数 */
+    private int rowCount;
+
+    private RowWindow(int startRow, int maxRows, @Nullable CancelToken cancelToken) {
+        this.startRow = startRow;
+        this.maxRows = maxRows;
+        this.cancelToken = cancelToken;
+    }
+
+    /**
+     * 为一张sheet创建行范围
+     * @return 读取全部行且不能取消时返回null
+     */
+    @Nullable
+    static RowWindow create(@NonNull ReadOptions options) {
+        if (options.getStartRow() <= 0 && options.getMaxRows() == Integer.MAX_VALUE
+                && options.getCancelToken() == null) {
+            return null;
+        }
+        return new RowWindow(options.getStartRow(), options.getMaxRows(), options.getCancelToken());
+    }
+
+    /** 某一行是否在范围内 */
+    boolean accept(int rowIndex) {
+        return rowIndex >= startRow;
+    }
+
+    /** 一行数据已经回调 */
+    void onRowRead() {
+        rowCount++;
+    }
+
+    /** 是否需要停止读取这张sheet：回调的行数已经达到上限，或者读取被取消 */
+    boolean isStopped() {
+        return rowCount >= maxRows || (cancelToken != null && cancelToken.isCancelled());
+    }
+}
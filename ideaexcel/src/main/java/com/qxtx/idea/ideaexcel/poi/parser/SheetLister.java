@@ -0,0 +1,90 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.parser.ExcelReader.Suffix;
+import com.qxtx.idea.ideaexcel.poi.parser.xlsx.SheetDimensionParser;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created in 2020/5/15 17:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 列出表格中所有sheet的名称和范围，不读取单元格数据。
+ *
+ * <pre>
+ * xls：读取全局数据中的sheet列表，再跳到每张sheet开头读取DIMENSIONS记录；
+ * xlsx：读取workbook.xml中的sheet列表，再读取每张sheet的xml开头的[dimension]节点；
+ * csv：只有一张sheet，范围未知。
+ * </pre>
+ */
+final class SheetLister {
+
+    private SheetLister() {
+    }
+
+    @NonNull
+    static List<SheetInfo> list(@NonNull File file) throws Exception {
+        List<SheetInfo> sheets = new ArrayList<>();
+        String format = FormatDetector.detect(file);
+        if (format == null) {
+            return sheets;
+        }
+
+        switch (format) {
+            case Suffix.XLS:
+                listXls(file, sheets);
+                break;
+            case Suffix.XLSX:
+                listXlsx(file, sheets);
+                break;
+            case Suffix.CSV:
+                sheets.add(new SheetInfo(0, file.getName()));
+                break;
+            default:
+                break;
+        }
+        return sheets;
+    }
+
+    private static void listXls(@NonNull File file, @NonNull List<SheetInfo> sheets) throws Exception {
+        try (XlsWorkbookReader workbook = new XlsWorkbookReader(file)) {
+            workbook.readGlobals(null);
+            for (int i = 0; i < workbook.getSheetCount(); i++) {
+                sheets.add(workbook.readSheetInfo(i));
+            }
+        }
+    }
+
+    private static void listXlsx(@NonNull File file, @NonNull List<SheetInfo> sheets) throws Exception {
+        OPCPackage opcp = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) new XSSFReader(opcp).getSheetsData();
+            for (int index = 0; iterator.hasNext(); index++) {
+                try (InputStream in = iterator.next()) {
+                    String name = iterator.getSheetName();
+                    CellRangeAddress range = SheetDimensionParser.parse(in);
+                    if (range == null) {
+                        sheets.add(new SheetInfo(index, name));
+                    } else {
+                        sheets.add(new SheetInfo(index, name, range.getFirstRow(), range.getLastRow(),
+                                range.getFirstColumn(), range.getLastColumn()));
+                    }
+                }
+            }
+        } finally {
+            opcp.revert();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.IParallelReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.ISheetReadCallback;
+
+import java.util.List;
+
+/**
+ * Created in 2020/5/16 9:50
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 将按sheet读取的回调转换为{@link IParallelReadCallback}，为每一行数据带上当前所属的sheet。
+ * 每个对象只能在一个线程中使用，并行读取时每张sheet使用一个独立的对象
+ */
+final class SheetTaggingCallback implements ISheetReadCallback {
+
+    private final IParallelReadCallback target;
+
+    /** 当前正在读取的sheet */
+    private SheetInfo sheet;
+
+    SheetTaggingCallback(@NonNull IParallelReadCallback target, @Nullable SheetInfo sheet) {
+        this.target = target;
+        this.sheet = sheet;
+    }
+
+    @NonNull
+    IParallelReadCallback getTarget() {
+        return target;
+    }
+
+    @Override
+    public void onSheetStart(@NonNull SheetInfo sheet) {
+        this.sheet = sheet;
+        target.onSheetStart(sheet);
+    }
+
+    @Override
+    public void onRowRead(int rowIndex, @NonNull List<String> row) {
+        target.onRowRead(sheet, rowIndex, row);
+    }
+
+    @Override
+    public void onSheetEnd(@NonNull SheetInfo sheet) {
+        target.onSheetEnd(sheet);
+    }
+
+    @Override
+    public void onFinished() {
+    }
+}
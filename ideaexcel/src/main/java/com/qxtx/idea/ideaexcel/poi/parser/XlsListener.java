@@ -0,0 +1,287 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellFormat;
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaError;
+
+import java.util.Arrays;
+
+/**
+ * hssf读取表格文件，读取内容过程通过此对象回调出来
+ * 目标解析结果：表格中每行数据按类型保存到{@link CellRow}中
+ *
+ * <pre>
+ * 1、数值的数字格式来自{@link FormatTrackingHSSFListener}，按XF序号缓存为{@link CellFormat}，数字格式是日期格式时识别为日期；
+ * 2、公式使用缓存的计算结果，结果为字符串时，字符串保存在紧随其后的STRING记录中；
+ * 3、共享字符串按序号缓存，同一个序号的单元格共用同一个String对象；
+ *   未选中的列、范围之外的行直接跳过，不会从共享字符串表中取出字符串；条件列不符合过滤条件时，
+ *   本行后面的单元格也直接跳过，见{@link RowSelector}；
+ * 4、excel用RK、MULRK记录保存大部分整数和短小数，hssf的记录流（RecordFactoryInputStream）已经把它们
+ *   解码为{@link NumberRecord}，列序号和XF序号不变，这里按{@link NumberRecord}读取为double，不会丢失，也不经过字符串。
+ * </pre>
+ *
+ * @see ReadSession
+ */
+final class XlsListener implements HSSFListener {
+
+    /**
+     * 公式缓存结果的类型，即{@link FormulaRecord#getCachedResultType()}的取值，
+     * 与CellType中的编码一致，CellType#getCode()已经过时，不再使用
+     */
+    private static final int RESULT_TYPE_STRING = 1;
+    private static final int RESULT_TYPE_BOOLEAN = 4;
+    private static final int RESULT_TYPE_ERROR = 5;
+
+    private final ITypedReadCallback callback;
+
+    /** 一行数据，每一行复用 */
+    private final CellRow row = new CellRow();
+
+    private final DataFormatter formatter = new DataFormatter();
+
+    private FormatTrackingHSSFListener formatListener;
+
+    /** 按XF序号缓存的数字格式，XF记录在工作簿的全局记录中，所有sheet共用 */
+    private CellFormat[] formats = new CellFormat[64];
+
+    private SheetInfo sheet;
+
+    /** 需要读取的行和列，为null时读取全部 */
+    private RowSelector selector;
+
+    private SSTRecord sstRecord;
+
+    /** 按序号缓存的共享字符串，同一个序号的单元格返回同一个String对象 */
+    private String[] sstStrings;
+
+    /** 是否使用1904日期系统 */
+    private boolean date1904;
+
+    /** 当前行是否已经开始 */
+    private boolean rowStarted;
+
+    /** 等待STRING记录的公式单元格的列序号 */
+    private int pendingStringColumn = -1;
+
+    XlsListener(@NonNull ITypedReadCallback callback) {
+        this.callback = callback;
+    }
+
+    /** 用于读取单元格的数字格式，需要在解析前设置 */
+    void setFormatListener(@NonNull FormatTrackingHSSFListener formatListener) {
+        this.formatListener = formatListener;
+    }
+
+    /**
+     * 设置接下来读取的sheet
+     * @param selector 需要读取的行和列，为null时读取全部
+     */
+    void setSheet(@Nullable SheetInfo sheet, @Nullable RowSelector selector) {
+        this.sheet = sheet;
+        this.selector = selector;
+        //上一张sheet可能被提前停止
+        rowStarted = false;
+        pendingStringColumn = -1;
+    }
+
+    @Override
+    public void processRecord(Record record) {
+        switch (record.getSid()) {
+            case SSTRecord.sid:
+                sstRecord = (SSTRecord) record;
+                sstStrings = new String[sstRecord.getNumUniqueStrings()];
+                return;
+            case DateWindow1904Record.sid:
+                date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+                return;
+            case LabelSSTRecord.sid:
+                LabelSSTRecord lsrec = (LabelSSTRecord) record;
+                if (sstRecord != null && accept(lsrec)) {
+                    row.addString(lsrec.getColumn(), getSstString(lsrec.getSSTIndex()));
+                    onCellAdded(lsrec.getColumn());
+                }
+                return;
+            case LabelRecord.sid:
+                LabelRecord lrec = (LabelRecord) record;
+                if (!accept(lrec)) {
+                    return;
+                }
+                row.addString(lrec.getColumn(), lrec.getValue());
+                onCellAdded(lrec.getColumn());
+                return;
+            case NumberRecord.sid:
+                NumberRecord nr = (NumberRecord) record;
+                if (!accept(nr)) {
+                    return;
+                }
+                addNumber(nr, nr.getValue());
+                return;
+            case FormulaRecord.sid:
+                FormulaRecord frec = (FormulaRecord) record;
+                if (accept(frec)) {
+                    addFormula(frec);
+                }
+                return;
+            case StringRecord.sid:
+                if (pendingStringColumn >= 0) {
+                    row.addString(pendingStringColumn, ((StringRecord) record).getString());
+                    onCellAdded(pendingStringColumn);
+                    pendingStringColumn = -1;
+                }
+                return;
+            case BlankRecord.sid:
+                BlankRecord brec = (BlankRecord) record;
+                if (!accept(brec)) {
+                    return;
+                }
+                row.addBlank(brec.getColumn());
+                onCellAdded(brec.getColumn());
+                return;
+            case BoolErrRecord.sid:
+                BoolErrRecord berec = (BoolErrRecord) record;
+                if (!accept(berec)) {
+                    return;
+                }
+                if (berec.isBoolean()) {
+                    row.addBoolean(berec.getColumn(), berec.getBooleanValue());
+                } else {
+                    row.addError(berec.getColumn(), errorText(berec.getErrorValue()));
+                }
+                onCellAdded(berec.getColumn());
+                return;
+            default:
+                break;
+        }
+
+        if (record instanceof LastCellOfRowDummyRecord) {
+            //补齐的空行在同一次processRecord调用中连续产生，读取器来不及检查是否已经停止，需要在这里丢弃
+            if (selector != null && selector.isStopped()) {
+                return;
+            }
+            //行结束，给外面回调
+            startRow(((LastCellOfRowDummyRecord) record).getRow());
+            rowStarted = false;
+            pendingStringColumn = -1;
+            if (selector == null) {
+                callback.onRowRead(row);
+            } else if (selector.endRow(row)) {
+                callback.onRowRead(row);
+                selector.onRowRead();
+            }
+        }
+    }
+
+    /**
+     * 单元格是否需要读取，范围之外的行、未选中的列、不符合过滤条件的行中剩余的单元格，不读取字符串和数字格式
+     */
+    private boolean accept(@NonNull CellValueRecordInterface record) {
+        startRow(record.getRow());
+        return selector == null || selector.isCellSelected(record.getColumn());
+    }
+
+    private void startRow(int rowIndex) {
+        if (!rowStarted) {
+            row.reset(sheet, rowIndex, date1904, formatter);
+            rowStarted = true;
+            if (selector != null) {
+                selector.beginRow(rowIndex);
+            }
+        }
+    }
+
+    /** 条件列读取后立即检查过滤条件 */
+    private void onCellAdded(int column) {
+        if (selector != null) {
+            selector.onCellAdded(row, column);
+        }
+    }
+
+    private void addNumber(@NonNull CellValueRecordInterface record, double value) {
+        row.addNumber(record.getColumn(), value, getFormat(record));
+        onCellAdded(record.getColumn());
+    }
+
+    /** 共享字符串表中的字符串，第一次读取时才转换为String */
+    @NonNull
+    private String getSstString(int index) {
+        if (index >= sstStrings.length) {
+            //记录中的数量与实际数量不一致时不缓存
+            return sstRecord.getString(index).toString();
+        }
+        String value = sstStrings[index];
+        if (value == null) {
+            value = sstRecord.getString(index).toString();
+            sstStrings[index] = value;
+        }
+        return value;
+    }
+
+    /** 单元格的数字格式，按XF序号缓存，每种样式只查找一次 */
+    @Nullable
+    private CellFormat getFormat(@NonNull CellValueRecordInterface record) {
+        if (formatListener == null) {
+            return null;
+        }
+        int xfIndex = record.getXFIndex() & 0xffff;
+        if (xfIndex >= formats.length) {
+            formats = Arrays.copyOf(formats, Math.max(xfIndex + 1, formats.length * 2));
+        }
+        CellFormat format = formats[xfIndex];
+        if (format == null) {
+            int formatIndex = formatListener.getFormatIndex(record);
+            format = new CellFormat(formatIndex, formatIndex >= 0 ? formatListener.getFormatString(formatIndex) : null);
+            formats[xfIndex] = format;
+        }
+        return format;
+    }
+
+    private void addFormula(@NonNull FormulaRecord record) {
+        int type = record.getCachedResultType();
+        if (type == RESULT_TYPE_STRING) {
+            if (record.hasCachedResultString()) {
+                pendingStringColumn = record.getColumn();
+            } else {
+                row.addString(record.getColumn(), "");
+                onCellAdded(record.getColumn());
+            }
+        } else if (type == RESULT_TYPE_BOOLEAN) {
+            row.addBoolean(record.getColumn(), record.getCachedBooleanValue());
+            onCellAdded(record.getColumn());
+        } else if (type == RESULT_TYPE_ERROR) {
+            row.addError(record.getColumn(), errorText(record.getCachedErrorValue()));
+            onCellAdded(record.getColumn());
+        } else {
+            addNumber(record, record.getValue());
+        }
+    }
+
+    @NonNull
+    private static String errorText(int code) {
+        try {
+            return FormulaError.forInt(code).getString();
+        } catch (IllegalArgumentException e) {
+            return "#ERROR!";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created in 2020/5/15 16:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按sheet读取xls的Workbook流。
+ *
+ * <pre>
+ * xls的Workbook流由全局数据（共享字符串、数字格式、sheet列表等）和每张sheet的数据依次组成，
+ * 每一部分都以BOF记录开始、EOF记录结束，全局数据中的BOUNDSHEET记录保存了每张sheet的BOF记录在流中的位置。
+ * 因此只需要先读取全局数据，再直接跳到需要的sheet读取，不需要的sheet中的记录不会被解析。
+ *
+ * 注意：
+ * 1、跳过的数据仍然需要从文件中按块读出，但不会被解析为记录；
+ * 2、不支持加密的xls。
+ * </pre>
+ */
+final class XlsWorkbookReader implements Closeable {
+
+    /** 跳过数据时每次跳过的字节数，避免一次性分配大数组 */
+    private static final int SKIP_STEP = 64 * 1024;
+
+    private final POIFSFileSystem fs;
+
+    private final DirectoryNode root;
+
+    private final String workbookName;
+
+    /** 按表格中的顺序排列的sheet记录 */
+    private final List<BoundSheetRecord> sheets = new ArrayList<>();
+
+    XlsWorkbookReader(@NonNull File file) throws IOException {
+        fs = new POIFSFileSystem(file, true);
+        root = fs.getRoot();
+        workbookName = HSSFWorkbook.getWorkbookDirEntryName(root);
+    }
+
+    /**
+     * 读取全局数据，所有记录都会交给listener
+     * @param listener 为null时只读取sheet列表
+     */
+    void readGlobals(@Nullable final HSSFListener listener) throws IOException {
+        sheets.clear();
+        process(0, new SubstreamListener() {
+            @Override
+            void onRecord(@NonNull Record record) {
+                if (record instanceof BoundSheetRecord) {
+                    sheets.add((BoundSheetRecord) record);
+                }
+                if (listener != null) {
+                    listener.processRecord(record);
+                }
+            }
+        });
+    }
+
+    /** sheet数量，需要先调用{@link #readGlobals(HSSFListener)} */
+    int getSheetCount() {
+        return sheets.size();
+    }
+
+    /** sheet名称，需要先调用{@link #readGlobals(HSSFListener)} */
+    @NonNull
+    String getSheetName(int index) {
+        return sheets.get(index).getSheetname();
+    }
+
+    /**
+     * 读取一张sheet的所有记录，交给listener
+     * @param selector 行和列的选择，需要停止读取时，在当前记录处理完后立即停止，不会再读取后面的记录
+     */
+    void readSheet(int index, @NonNull final HSSFListener listener, @Nullable final RowSelector selector)
+            throws IOException {
+        process(sheets.get(index).getPositionOfBof(), new SubstreamListener() {
+            @Override
+            void onRecord(@NonNull Record record) {
+                listener.processRecord(record);
+            }
+
+            @Override
+            boolean isDone() {
+                return selector != null && selector.isStopped();
+            }
+        });
+    }
+
+    /** 读取一张sheet开头的DIMENSIONS记录，得到sheet的基本信息 */
+    @NonNull
+    SheetInfo readSheetInfo(int index) throws IOException {
+        final DimensionsRecord[] dimensions = new DimensionsRecord[1];
+        process(sheets.get(index).getPositionOfBof(), new SubstreamListener() {
+            @Override
+            void onRecord(@NonNull Record record) {
+                if (record instanceof DimensionsRecord) {
+                    dimensions[0] = (DimensionsRecord) record;
+                }
+            }
+
+            @Override
+            boolean isDone() {
+                return dimensions[0] != null;
+            }
+        });
+
+        String name = getSheetName(index);
+        DimensionsRecord d = dimensions[0];
+        //DIMENSIONS记录中的最后一行/列是开区间
+        if (d == null || d.getLastRow() <= d.getFirstRow() || d.getLastCol() <= d.getFirstCol()) {
+            return new SheetInfo(index, name);
+        }
+        return new SheetInfo(index, name, d.getFirstRow(), d.getLastRow() - 1, d.getFirstCol(), d.getLastCol() - 1);
+    }
+
+    /** 从Workbook流的position处开始，读取一个完整的BOF-EOF部分 */
+    private void process(int position, @NonNull SubstreamListener listener) throws IOException {
+        try (DocumentInputStream in = root.createDocumentInputStream(workbookName)) {
+            long remaining = position;
+            while (remaining > 0) {
+                long skipped = in.skip(Math.min(remaining, SKIP_STEP));
+                if (skipped <= 0) {
+                    throw new IOException("sheet位置超出Workbook流的范围：" + position);
+                }
+                remaining -= skipped;
+            }
+
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(listener);
+            new HSSFEventFactory().abortableProcessEvents(request, in);
+        } catch (HSSFUserException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fs.close();
+    }
+
+    /**
+     * 只处理一个BOF-EOF部分的监听器，遇到对应的EOF记录后停止读取。
+     * 部分中可能嵌套其他部分（如sheet中的图表），按BOF/EOF的层级判断结束位置
+     */
+    private abstract static class SubstreamListener extends AbortableHSSFListener {
+
+        private int depth;
+
+        abstract void onRecord(@NonNull Record record);
+
+        /** 是否可以提前停止读取 */
+        boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            onRecord(record);
+            if (record instanceof BOFRecord) {
+                depth++;
+            } else if (record instanceof EOFRecord) {
+                depth--;
+            }
+            return (short) (depth <= 0 || isDone() ? 1 : 0);
+        }
+    }
+}
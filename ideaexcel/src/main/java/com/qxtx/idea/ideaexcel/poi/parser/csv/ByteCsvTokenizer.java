@@ -0,0 +1,477 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CharSlice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Created in 2020/5/13 10:48
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按字节切分的csv分词器，直接在{@link ByteBuffer}上扫描编码后的数据，只对单元格内容做解码。
+ *
+ * <pre>
+ * 对于兼容ASCII的字符编码（utf-8、gbk等，见{@link CsvCharsetDetector#isAsciiCompatible(Charset)}），
+ * [,]、["]、[\r]、[\n]只会以单字节的形式出现，不会出现在多字节字符内部，因此可以不经过解码直接按字节切分行和单元格。
+ * 与先把整个文件解码为字符再扫描相比：
+ * 1、跳过了InputStreamReader的通用解码流程，扫描只需要比较字节；
+ * 2、单元格只有在被读取时才会解码，不需要的单元格完全不解码；
+ * 3、纯ASCII的单元格直接逐字节转换为字符，只有包含非ASCII字节的单元格才会经过{@link CharsetDecoder}。
+ *
+ * 数据来源有两种：
+ * 1、{@link InputStream}：分块读取到可复用的缓冲区中，一行数据放不下时才会扩容；
+ * 2、{@link ByteBuffer}：数据已经全部在内存中（例如内存映射的文件块），直接在其上扫描，不会修改其内容。
+ *
+ * 单元格的引号规则与{@link CsvTokenizer}一致。
+ *
+ * 注意：
+ * 1、非线程安全，一个分词器只能在一个线程中使用；
+ * 2、{@link #getCell(int)}返回的视图只在下一次调用{@link #nextRow()}之前有效；
+ * 3、数据开头的BOM需要由调用者跳过。
+ * </pre>
+ */
+public final class ByteCsvTokenizer implements ICsvTokenizer {
+
+    /** 缓冲区默认大小为200KB，减少文件I/O次数 */
+    private static final int DEFAULT_BUFFER_SIZE = 200 * 1024;
+
+    private static final byte CSV_SEP_BYTE = ',';
+
+    private static final byte CSV_SPEC_BYTE = '"';
+
+    private static final String ERR_MISSING_QUOTE = "缺少\"，无法解析的单元格";
+
+    private static final String ERR_ILLEGAL_DATA = "检测到非法数据，解析异常";
+
+    /** 单元格扫描结果：单元格结束，本行还有下一个单元格 */
+    private static final int SCAN_NEXT = 0;
+
+    /** 单元格扫描结果：单元格结束，本行结束（停在行结束符上，或到达数据结尾） */
+    private static final int SCAN_ROW_END = 1;
+
+    /** 数据来源为ByteBuffer时为null */
+    private final InputStream in;
+
+    /** 数据来源为InputStream时，缓冲区对应的数组 */
+    private byte[] array;
+
+    private ByteBuffer buf;
+
+    /** 用于解码单元格内容的buf视图 */
+    private ByteBuffer decodeView;
+
+    /** 缓冲区中有效数据的结束位置 */
+    private int limit;
+
+    /** 当前扫描位置 */
+    private int pos;
+
+    /** 缓冲区中需要保留的数据的起始位置，在此之前的数据都已经被消费，填充数据时可以丢弃 */
+    private int mark;
+
+    /** 正在扫描的单元格内容的起止位置 */
+    private int cellBegin;
+    private int cellEnd;
+
+    /** 正在扫描的单元格是否以["]开头 */
+    private boolean quoted;
+
+    /** 正在扫描的单元格是否包含需要还原的[""] */
+    private boolean escaped;
+
+    private boolean eof;
+
+    /** 当前行每个单元格在缓冲区中的字节起止位置，以及是否包含[""] */
+    private int[] cellStarts = new int[16];
+    private int[] cellEnds = new int[16];
+    private boolean[] cellEscaped = new boolean[16];
+
+    private int cellCount;
+
+    /** 解码后的单元格内容，每一行复用 */
+    private char[] chars = new char[1024];
+    private CharBuffer charView = CharBuffer.wrap(chars);
+    private int charLen;
+
+    /** 单元格解码后在chars中的起止位置，以及解码时的行标记，标记与当前行不一致说明还没有解码 */
+    private int[] charStarts = new int[16];
+    private int[] charEnds = new int[16];
+    private int[] decodedStamps = new int[16];
+
+    /** 字符串驻留缓存，为null时每次都创建新的字符串 */
+    private StringCache stringCache;
+
+    /** 还原[""]时使用的临时字节数组 */
+    private byte[] unescapeBytes = new byte[256];
+
+    /** 单元格视图，按列复用 */
+    private CharSlice[] slices = new CharSlice[16];
+
+    private final CharsetDecoder decoder;
+
+    /** 已读取的行序号，从0开始计数 */
+    private int rowIndex = -1;
+
+    /** 每读取一行加1，用于判断单元格是否已经解码 */
+    private int rowStamp;
+
+    public ByteCsvTokenizer(@NonNull InputStream in, @NonNull Charset charset) {
+        this(in, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ByteCsvTokenizer(@NonNull InputStream in, @NonNull Charset charset, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize必须大于0");
+        }
+        this.in = in;
+        this.array = new byte[bufferSize];
+        this.buf = ByteBuffer.wrap(array);
+        this.decodeView = buf.duplicate();
+        this.decoder = newDecoder(charset);
+    }
+
+    /**
+     * 直接在内存中的数据上扫描，范围为data的[position, limit)
+     */
+    public ByteCsvTokenizer(@NonNull ByteBuffer data, @NonNull Charset charset) {
+        this.in = null;
+        this.buf = data;
+        this.decodeView = data.duplicate();
+        this.pos = data.position();
+        this.limit = data.limit();
+        this.eof = true;
+        this.decoder = newDecoder(charset);
+    }
+
+    @Override
+    public boolean nextRow() throws IOException {
+        cellCount = 0;
+        charLen = 0;
+        rowStamp++;
+        mark = pos;
+        if (pos >= limit && !fill()) {
+            return false;
+        }
+
+        if (!isLineEnd(buf.get(pos))) {
+            int result;
+            do {
+                if (pos >= limit && !fill()) {
+                    //行尾的[,]之后直接到达数据结尾，说明后面存在一个空值
+                    addCell(pos, pos, false);
+                    break;
+                }
+                result = scanCell();
+                addCell(cellBegin, cellEnd, escaped);
+            } while (result == SCAN_NEXT);
+        }
+
+        if (pos < limit || fill()) {
+            skipLineEnd();
+        }
+        rowIndex++;
+        return true;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    @NonNull
+    public CharSequence getCell(int index) {
+        decodeCell(index);
+        CharSlice slice = slices[index];
+        if (slice == null) {
+            slice = new CharSlice();
+            slices[index] = slice;
+        }
+        slice.set(chars, charStarts[index], charEnds[index] - charStarts[index]);
+        return slice;
+    }
+
+    @Override
+    @NonNull
+    public String getCellString(int index) {
+        decodeCell(index);
+        int start = charStarts[index];
+        int len = charEnds[index] - start;
+        if (stringCache != null) {
+            return stringCache.get(chars, start, len);
+        }
+        return len == 0 ? "" : new String(chars, start, len);
+    }
+
+    @Override
+    public void setStringCache(@Nullable StringCache cache) {
+        this.stringCache = cache;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    /** 扫描一个单元格，调用前需保证缓冲区中至少有一个字节 */
+    private int scanCell() throws IOException {
+        quoted = buf.get(pos) == CSV_SPEC_BYTE;
+        escaped = false;
+        if (quoted) {
+            //跳过左双引号
+            pos++;
+        }
+        cellBegin = pos;
+        return quoted ? scanQuoted() : scanPlain();
+    }
+
+    /** 扫描不以["]开头的单元格，遇到[,]或行结束符即为单元格结束 */
+    private int scanPlain() throws IOException {
+        while (true) {
+            final ByteBuffer b = buf;
+            final int l = limit;
+            int p = pos;
+            while (p < l) {
+                byte c = b.get(p);
+                if (c == CSV_SEP_BYTE || c == '\n' || c == '\r') {
+                    break;
+                }
+                p++;
+            }
+            pos = p;
+            cellEnd = p;
+
+            if (p < l) {
+                if (b.get(p) == CSV_SEP_BYTE) {
+                    pos++;
+                    return SCAN_NEXT;
+                }
+                return SCAN_ROW_END;
+            }
+
+            if (!fill()) {
+                //数据结尾
+                return SCAN_ROW_END;
+            }
+        }
+    }
+
+    /**
+     * 扫描以["]开头的单元格，双引号内的[,]和换行都属于单元格内容。
+     * [""]不在缓冲区内还原，只做标记，解码时再还原，因此不会修改数据来源。
+     */
+    private int scanQuoted() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) {
+                throw new IllegalStateException(ERR_MISSING_QUOTE);
+            }
+
+            final ByteBuffer b = buf;
+            final int l = limit;
+            int p = pos;
+            while (p < l && b.get(p) != CSV_SPEC_BYTE) {
+                p++;
+            }
+            pos = p;
+            if (p == l) {
+                continue;
+            }
+
+            //再次碰到["]，下一个字节只能是["]、[,]、行结束符，或者到达数据结尾
+            if (pos + 1 >= limit && !fill()) {
+                cellEnd = pos;
+                pos++;
+                return SCAN_ROW_END;
+            }
+
+            byte next = buf.get(pos + 1);
+            if (next == CSV_SPEC_BYTE) {
+                escaped = true;
+                pos += 2;
+                continue;
+            }
+
+            cellEnd = pos;
+            pos++;
+            if (next == CSV_SEP_BYTE) {
+                pos++;
+                return SCAN_NEXT;
+            } else if (isLineEnd(next)) {
+                return SCAN_ROW_END;
+            }
+            throw new IllegalStateException(ERR_ILLEGAL_DATA);
+        }
+    }
+
+    /**
+     * 解码一个单元格的内容。
+     * 纯ASCII部分直接逐字节转换，遇到第一个非ASCII字节后，剩余部分交给decoder解码。
+     */
+    private void decodeCell(int index) {
+        if (index < 0 || index >= cellCount) {
+            throw new IndexOutOfBoundsException("index=" + index + ", cellCount=" + cellCount);
+        }
+        if (decodedStamps[index] == rowStamp) {
+            return;
+        }
+
+        final int start = cellStarts[index];
+        final int end = cellEnds[index];
+        final boolean esc = cellEscaped[index];
+        //兼容ASCII的字符编码中，每个字节最多解码出一个字符（utf-8的4字节序列解码为2个字符）
+        ensureChars(end - start);
+
+        final ByteBuffer b = buf;
+        final char[] out = chars;
+        int o = charLen;
+        int p = start;
+        while (p < end) {
+            byte c = b.get(p);
+            if (c < 0) {
+                break;
+            }
+            if (esc && c == CSV_SPEC_BYTE) {
+                p++;
+            }
+            out[o++] = (char) c;
+            p++;
+        }
+
+        if (p < end) {
+            ByteBuffer src;
+            if (esc) {
+                src = unescape(p, end);
+            } else {
+                decodeView.clear();
+                decodeView.position(p);
+                decodeView.limit(end);
+                src = decodeView;
+            }
+            charView.clear();
+            charView.position(o);
+            decoder.reset();
+            decoder.decode(src, charView, true);
+            decoder.flush(charView);
+            o = charView.position();
+        }
+
+        charStarts[index] = charLen;
+        charEnds[index] = o;
+        decodedStamps[index] = rowStamp;
+        charLen = o;
+    }
+
+    /** 将[start, end)中的[""]还原为["]，复制到临时数组中 */
+    private ByteBuffer unescape(int start, int end) {
+        if (unescapeBytes.length < end - start) {
+            unescapeBytes = new byte[end - start];
+        }
+        int n = 0;
+        for (int p = start; p < end; p++) {
+            byte c = buf.get(p);
+            if (c == CSV_SPEC_BYTE) {
+                p++;
+            }
+            unescapeBytes[n++] = c;
+        }
+        return ByteBuffer.wrap(unescapeBytes, 0, n);
+    }
+
+    private void ensureChars(int byteCount) {
+        int need = charLen + byteCount + 1;
+        if (need > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(need, chars.length * 2));
+            charView = CharBuffer.wrap(chars);
+        }
+    }
+
+    private static boolean isLineEnd(byte c) {
+        return c == '\n' || c == '\r';
+    }
+
+    /** 跳过[\n]、[\r\n]或[\r] */
+    private void skipLineEnd() throws IOException {
+        if (buf.get(pos++) == '\r' && (pos < limit || fill()) && buf.get(pos) == '\n') {
+            pos++;
+        }
+    }
+
+    private void addCell(int start, int end, boolean esc) {
+        if (cellCount == cellStarts.length) {
+            int newSize = cellCount * 2;
+            cellStarts = Arrays.copyOf(cellStarts, newSize);
+            cellEnds = Arrays.copyOf(cellEnds, newSize);
+            cellEscaped = Arrays.copyOf(cellEscaped, newSize);
+            charStarts = Arrays.copyOf(charStarts, newSize);
+            charEnds = Arrays.copyOf(charEnds, newSize);
+            decodedStamps = Arrays.copyOf(decodedStamps, newSize);
+            slices = Arrays.copyOf(slices, newSize);
+        }
+        cellStarts[cellCount] = start;
+        cellEnds[cellCount] = end;
+        cellEscaped[cellCount] = esc;
+        cellCount++;
+    }
+
+    /**
+     * 从InputStream读取更多数据到缓冲区。
+     * mark之前已被消费的数据会被丢弃，需要保留的数据已经占满缓冲区时才会扩容。
+     * @return [true]读取到了新数据  [false]已到达数据结尾
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        int shift = mark;
+        if (shift > 0) {
+            System.arraycopy(array, shift, array, 0, limit - shift);
+            limit -= shift;
+            pos -= shift;
+            cellBegin -= shift;
+            cellEnd -= shift;
+            mark = 0;
+            for (int i = 0; i < cellCount; i++) {
+                cellStarts[i] -= shift;
+                cellEnds[i] -= shift;
+            }
+        }
+        if (limit == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+            buf = ByteBuffer.wrap(array);
+            decodeView = buf.duplicate();
+        }
+
+        int n = in.read(array, limit, array.length - limit);
+        if (n <= 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
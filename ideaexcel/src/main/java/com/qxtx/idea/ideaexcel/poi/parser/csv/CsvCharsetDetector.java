@@ -0,0 +1,151 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Created in 2020/5/13 10:05
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description csv文件的字符编码识别
+ *
+ * <pre>
+ * 识别顺序：
+ * 1、BOM：[EF BB BF]为utf-8，[FF FE]为utf-16le，[FE FF]为utf-16be；
+ * 2、没有BOM时，对文件开头的一块数据做简单统计：
+ *   ①没有任何非ASCII字节，按utf-8处理（ASCII部分utf-8和gbk完全一致）；
+ *   ②非ASCII字节全部能组成合法的utf-8多字节序列，认为是utf-8（Mac、Linux生成的文件）；
+ *   ③否则按gbk处理（windows下默认字符编码格式）。
+ *
+ * 注意：只检查开头的一块数据，开头全是ASCII而后面才出现中文的gbk文件会被误判为utf-8，此时应主动指定字符编码。
+ * </pre>
+ */
+public final class CsvCharsetDetector {
+
+    /** 用于识别字符编码的数据块大小 */
+    public static final int DETECT_SIZE = 8 * 1024;
+
+    public static final Charset GBK = Charset.forName("gbk");
+
+    private static final byte[] BOM_UTF8 = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] BOM_UTF16LE = {(byte) 0xFF, (byte) 0xFE};
+    private static final byte[] BOM_UTF16BE = {(byte) 0xFE, (byte) 0xFF};
+
+    private CsvCharsetDetector() { }
+
+    /**
+     * 通过BOM识别字符编码
+     * @return 没有BOM时返回null
+     */
+    @Nullable
+    public static Charset sniffBom(@NonNull byte[] head, int len) {
+        if (startsWith(head, len, BOM_UTF8)) {
+            return StandardCharsets.UTF_8;
+        } else if (startsWith(head, len, BOM_UTF16LE)) {
+            return StandardCharsets.UTF_16LE;
+        } else if (startsWith(head, len, BOM_UTF16BE)) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    /**
+     * 文件开头的BOM长度
+     * @param charset 文件的字符编码
+     * @return 没有与字符编码相符的BOM时返回0
+     */
+    public static int bomLength(@NonNull byte[] head, int len, @NonNull Charset charset) {
+        Charset bom = sniffBom(head, len);
+        if (bom == null || !bom.equals(charset)) {
+            return 0;
+        }
+        return StandardCharsets.UTF_8.equals(bom) ? BOM_UTF8.length : BOM_UTF16LE.length;
+    }
+
+    /** 识别文件开头一块数据的字符编码 */
+    @NonNull
+    public static Charset detect(@NonNull byte[] head, int len) {
+        Charset bom = sniffBom(head, len);
+        if (bom != null) {
+            return bom;
+        }
+
+        int i = 0;
+        while (i < len) {
+            int b = head[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+
+            int follow;
+            if (b >= 0xC2 && b <= 0xDF) {
+                follow = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                follow = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                follow = 3;
+            } else {
+                return GBK;
+            }
+
+            //数据块末尾被截断的序列不计入统计
+            if (i + follow >= len) {
+                break;
+            }
+            for (int k = 1; k <= follow; k++) {
+                if ((head[i + k] & 0xC0) != 0x80) {
+                    return GBK;
+                }
+            }
+            i += follow + 1;
+        }
+
+        //没有非ASCII字符，或全部是合法的utf-8序列
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * 字符编码是否兼容ASCII，即[,]、["]、[\r]、[\n]都编码为单个同值字节，且不会出现在多字节字符内部。
+     * utf-8、gbk、gb18030等都满足，可以使用{@link ByteCsvTokenizer}直接按字节切分；utf-16等则不满足。
+     */
+    public static boolean isAsciiCompatible(@NonNull Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        final String probe = ",\"\r\n";
+        try {
+            ByteBuffer bytes = charset.newEncoder().encode(CharBuffer.wrap(probe));
+            if (bytes.remaining() != probe.length()) {
+                return false;
+            }
+            for (int i = 0; i < probe.length(); i++) {
+                if (bytes.get(i) != probe.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] head, int len, byte[] bom) {
+        if (len < bom.length) {
+            return false;
+        }
+        for (int i = 0; i < bom.length; i++) {
+            if (head[i] != bom[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
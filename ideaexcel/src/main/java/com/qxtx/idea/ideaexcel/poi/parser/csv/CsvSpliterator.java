@@ -0,0 +1,197 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.parser.CancelToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Created in 2020/5/18 10:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 可以按块拆分的csv读取，用于并行的{@link java.util.stream.Stream}，由{@link ParallelCsvReader#spliterator(SheetInfo)}创建。
+ *
+ * <pre>
+ * 1、文件已经按行边界切分成多块，{@link #trySplit()}把还未开始读取的块分成前后两半，前一半交给新的对象，
+ *   因此拆分后仍然保持文件中的顺序，行序号是该行在文件中的真实序号；
+ * 2、每一块在遍历时才做内存映射和分词，没有遍历到的块不会读取；
+ * 3、已经开始遍历的对象不再拆分；
+ * 4、所有拆分出的对象共享同一个文件，{@link #close()}只需要在Stream关闭时调用一次；
+ * 5、每次{@link #tryAdvance(Consumer)}之前检查取消对象，取消后所有拆分出的对象都不再返回新的行。
+ * </pre>
+ */
+@RequiresApi(Build.VERSION_CODES.N)
+public final class CsvSpliterator implements Spliterator<CellRow>, Closeable {
+
+    private final RandomAccessFile raf;
+
+    private final FileChannel channel;
+
+    private final Charset charset;
+
+    @Nullable
+    private final SheetInfo sheet;
+
+    /** 需要读取的列，为null时读取全部列 */
+    @Nullable
+    private final BitSet columns;
+
+    /** 行过滤条件，为null时读取全部行 */
+    @Nullable
+    private final ParallelCsvReader.IRowTester rowTester;
+
+    /** 字符串驻留缓存，为null时不使用 */
+    @Nullable
+    private final StringCache stringCache;
+
+    /** 外部设置的取消对象，为null时不能取消 */
+    @Nullable
+    private final CancelToken cancelToken;
+
+    private final List<ParallelCsvReader.Region> regions;
+
+    /** 下一个需要读取的块 */
+    private int next;
+
+    /** 本对象负责的块的结束位置（不包含） */
+    private final int end;
+
+    /** 正在读取的块的分词器 */
+    private ByteCsvTokenizer tokenizer;
+
+    /** 正在读取的块中下一行的行序号 */
+    private long rowIndex;
+
+    CsvSpliterator(@NonNull RandomAccessFile raf, @NonNull Charset charset, @Nullable SheetInfo sheet,
+                   @Nullable BitSet columns, @Nullable ParallelCsvReader.IRowTester rowTester,
+                   @Nullable StringCache stringCache, @Nullable CancelToken cancelToken,
+                   @NonNull List<ParallelCsvReader.Region> regions) {
+        this(raf, charset, sheet, columns, rowTester, stringCache, cancelToken, regions, 0, regions.size());
+    }
+
+    private CsvSpliterator(@NonNull RandomAccessFile raf, @NonNull Charset charset, @Nullable SheetInfo sheet,
+                           @Nullable BitSet columns, @Nullable ParallelCsvReader.IRowTester rowTester,
+                           @Nullable StringCache stringCache, @Nullable CancelToken cancelToken,
+                           @NonNull List<ParallelCsvReader.Region> regions, int next, int end) {
+        this.raf = raf;
+        this.channel = raf.getChannel();
+        this.charset = charset;
+        this.sheet = sheet;
+        this.columns = columns;
+        this.rowTester = rowTester;
+        this.stringCache = stringCache;
+        this.cancelToken = cancelToken;
+        this.regions = regions;
+        this.next = next;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super CellRow> action) {
+        try {
+            while (true) {
+                if (cancelToken != null && cancelToken.isCancelled()) {
+                    return false;
+                }
+                if (tokenizer == null && !openNextRegion()) {
+                    return false;
+                }
+                if (!tokenizer.nextRow()) {
+                    tokenizer.close();
+                    tokenizer = null;
+                    continue;
+                }
+
+                long index = rowIndex++;
+                if (rowTester != null && !rowTester.test(tokenizer, index)) {
+                    continue;
+                }
+                CellRow row = new CellRow();
+                row.reset(sheet, (int) index, false, null);
+                int cellCount = tokenizer.getCellCount();
+                for (int i = 0; i < cellCount; i++) {
+                    if (columns == null || columns.get(i)) {
+                        row.addString(i, tokenizer.getCellString(i));
+                    }
+                }
+                action.accept(row);
+                return true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 把还未开始读取的块分成前后两半，前一半交给新的对象
+     * @return 已经开始遍历或者剩余的块不足两块时返回null
+     */
+    @Override
+    public Spliterator<CellRow> trySplit() {
+        if (tokenizer != null || end - next < 2) {
+            return null;
+        }
+        int mid = next + (end - next) / 2;
+        CsvSpliterator prefix = new CsvSpliterator(raf, charset, sheet, columns, rowTester, stringCache,
+                cancelToken, regions, next, mid);
+        next = mid;
+        return prefix;
+    }
+
+    /** 剩余的行数，切分时预先统计，有过滤条件时只是估计值 */
+    @Override
+    public long estimateSize() {
+        long size = 0;
+        for (int i = next; i < end; i++) {
+            size += regions.get(i).rowCount;
+        }
+        return tokenizer != null ? size + 1 : size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /** 关闭文件，所有拆分出的对象都不能再使用 */
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    private boolean openNextRegion() throws IOException {
+        while (next < end) {
+            ParallelCsvReader.Region region = regions.get(next++);
+            long length = region.end - region.start;
+            if (length == 0) {
+                continue;
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("单行数据过大，无法并行解析");
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, region.start, length);
+            tokenizer = new ByteCsvTokenizer(data, charset);
+            tokenizer.setStringCache(stringCache);
+            rowIndex = region.rowBase;
+            return true;
+        }
+        return false;
+    }
+}
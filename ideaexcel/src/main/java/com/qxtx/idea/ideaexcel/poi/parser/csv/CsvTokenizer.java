@@ -0,0 +1,362 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CharSlice;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Created in 2020/5/12 10:40
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description csv分词器，直接在一块可复用的char[]缓冲区上用状态机逐字符扫描，按行产出单元格。
+ *
+ * <pre>
+ * 与逐行readLine再substring的做法相比：
+ * 1、不会为每一行创建String，也不会为每个单元格substring，单元格只以[起始位置,长度]的形式记录在缓冲区上；
+ * 2、带双引号的单元格直接在缓冲区内原地还原[""]为["]，不经过额外的StringBuilder拷贝；
+ * 3、单元格通过{@link #getCell(int)}以{@link CharSequence}视图的形式暴露，
+ *   只有调用{@link #getCellString(int)}时才会创建字符串。
+ *
+ * 单元格内有特殊字符的处理（RFC 4180）：用双引号将单元格内容包含起来，取值时需要去除双引号，有三种特殊符号：
+ * ①仅处理带[,]的单元格：直接用""将整个单元格内容包含起来
+ * ②仅处理带["]的单元格：用""将整个单元格内容包含起来，并且这个作为单元格数据的["]用两个连续的双引号表示。
+ * ③处理带换行的单元格：用""将整个单元格内容包含起来，单元格内的换行原样保留
+ * ④多种特殊字符同时存在的单元格：同时使用以上处理
+ * 示例：
+ * 单元格内容1：[,]      csv表示：[","]
+ * 单元格内容2：[abc]    csv表示：[abc]
+ * 单元格内容3：["]      csv表示：[""""]
+ * 单元格内容4：[,abc"]  csv表示：[",abc"""]
+ * 单元格内容5：[]  csv表示：[]
+ * 单元格内容6：[a\nb]  csv表示：["a\nb"]
+ *
+ * 注意：
+ * 1、非线程安全，一个分词器只能在一个线程中使用；
+ * 2、{@link #getCell(int)}返回的视图指向内部缓冲区，只在下一次读取之前有效；
+ *   一整行的数据会保留在缓冲区中，缓冲区大小取决于最长的一行；
+ * 3、行结束符支持[\n]、[\r\n]、[\r]，空行会产出一个没有单元格的行。
+ * </pre>
+ */
+public final class CsvTokenizer implements ICsvTokenizer {
+
+    /** 缓冲区默认大小为200K个字符，减少文件I/O次数 */
+    private static final int DEFAULT_BUFFER_SIZE = 200 * 1024;
+
+    private static final char CSV_SEP_CHAR = ',';
+
+    private static final char CSV_SPEC_CHAR = '"';
+
+    private static final String ERR_MISSING_QUOTE = "缺少\"，无法解析的单元格";
+
+    private static final String ERR_ILLEGAL_DATA = "检测到非法数据，解析异常";
+
+    /** 单元格扫描结果：单元格结束，本行还有下一个单元格 */
+    private static final int SCAN_NEXT = 0;
+
+    /** 单元格扫描结果：单元格结束，本行结束（停在行结束符上，或到达文件结尾） */
+    private static final int SCAN_ROW_END = 1;
+
+    private final Reader reader;
+
+    /** 字符缓冲区，一行数据放不下才会扩容 */
+    private char[] buf;
+
+    /** 字符串驻留缓存，为null时每次都创建新的字符串 */
+    private StringCache stringCache;
+
+    /** 缓冲区中有效数据的结束位置 */
+    private int limit;
+
+    /** 当前扫描位置 */
+    private int pos;
+
+    /** 缓冲区中需要保留的数据的起始位置，在此之前的数据都已经被消费，填充数据时可以丢弃 */
+    private int mark;
+
+    /** 正在扫描的单元格内容在缓冲区中的起始位置 */
+    private int cellBegin;
+
+    /** 正在扫描的单元格内容的结束位置，带双引号的单元格也作为原地还原时的写入位置 */
+    private int write;
+
+    /** 正在扫描的单元格是否以["]开头 */
+    private boolean quoted;
+
+    private boolean eof;
+
+    /** 当前行每个单元格的起止位置 */
+    private int[] cellStarts = new int[16];
+    private int[] cellEnds = new int[16];
+
+    private int cellCount;
+
+    /** 单元格视图，按列复用 */
+    private CharSlice[] slices = new CharSlice[16];
+
+    /** 已读取的行序号，从0开始计数 */
+    private int rowIndex = -1;
+
+    public CsvTokenizer(@NonNull Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(@NonNull Reader reader, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize必须大于0");
+        }
+        this.reader = reader;
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * 读取下一行
+     * @return [true]读取到一行数据  [false]已经没有更多数据
+     */
+    @Override
+    public boolean nextRow() throws IOException {
+        cellCount = 0;
+        mark = pos;
+        if (pos >= limit && !fill()) {
+            return false;
+        }
+
+        if (!isLineEnd(buf[pos])) {
+            int result;
+            do {
+                if (pos >= limit && !fill()) {
+                    //行尾的[,]之后直接到达文件结尾，说明后面存在一个空值
+                    addCell(pos, pos);
+                    break;
+                }
+                openCell();
+                result = quoted ? scanQuoted() : scanPlain();
+                addCell(cellBegin, write);
+            } while (result == SCAN_NEXT);
+        }
+
+        if (pos < limit || fill()) {
+            skipLineEnd();
+        }
+        rowIndex++;
+        return true;
+    }
+
+    /** 当前行的序号，从0开始计数 */
+    @Override
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    /** 当前行的单元格数量 */
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * 获取当前行某个单元格的视图，不会创建字符串
+     * 注意：视图对象按列复用，只在下一次调用{@link #nextRow()}之前有效
+     */
+    @Override
+    @NonNull
+    public CharSequence getCell(int index) {
+        checkIndex(index);
+        CharSlice slice = slices[index];
+        if (slice == null) {
+            slice = new CharSlice();
+            slices[index] = slice;
+        }
+        slice.set(buf, cellStarts[index], cellEnds[index] - cellStarts[index]);
+        return slice;
+    }
+
+    /** 获取当前行某个单元格的字符串副本 */
+    @Override
+    @NonNull
+    public String getCellString(int index) {
+        checkIndex(index);
+        int start = cellStarts[index];
+        int len = cellEnds[index] - start;
+        if (stringCache != null) {
+            return stringCache.get(buf, start, len);
+        }
+        return len == 0 ? "" : new String(buf, start, len);
+    }
+
+    @Override
+    public void setStringCache(@Nullable StringCache cache) {
+        this.stringCache = cache;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /** 开始扫描一个新的单元格，调用前需保证缓冲区中至少有一个字符 */
+    private void openCell() {
+        quoted = buf[pos] == CSV_SPEC_CHAR;
+        if (quoted) {
+            //跳过左双引号
+            pos++;
+        }
+        cellBegin = pos;
+        write = pos;
+    }
+
+    /**
+     * 扫描不以["]开头的单元格，遇到[,]或行结束符即为单元格结束，单元格内容为[cellBegin, write)
+     */
+    private int scanPlain() throws IOException {
+        while (true) {
+            final char[] b = buf;
+            final int l = limit;
+            int p = pos;
+            while (p < l) {
+                char c = b[p];
+                if (c == CSV_SEP_CHAR || c == '\n' || c == '\r') {
+                    break;
+                }
+                p++;
+            }
+            pos = p;
+            write = p;
+
+            if (p < l) {
+                if (b[p] == CSV_SEP_CHAR) {
+                    pos++;
+                    return SCAN_NEXT;
+                }
+                return SCAN_ROW_END;
+            }
+
+            if (!fill()) {
+                //文件结尾
+                return SCAN_ROW_END;
+            }
+        }
+    }
+
+    /**
+     * 扫描以["]开头的单元格，在缓冲区内原地将[""]还原为["]，单元格内容为[cellBegin, write)。
+     * 双引号内的[,]和换行都属于单元格内容，引号状态保存在扫描位置中，因此可以跨越多次缓冲区填充。
+     */
+    private int scanQuoted() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) {
+                throw new IllegalStateException(ERR_MISSING_QUOTE);
+            }
+
+            final char[] b = buf;
+            final int l = limit;
+            int p = pos;
+            int w = write;
+            while (p < l) {
+                char c = b[p];
+                if (c == CSV_SPEC_CHAR) {
+                    break;
+                }
+                b[w++] = c;
+                p++;
+            }
+            pos = p;
+            write = w;
+            if (p == l) {
+                continue;
+            }
+
+            //再次碰到["]，下一个字符只能是["]、[,]、行结束符，或者到达文件结尾
+            if (pos + 1 >= limit && !fill()) {
+                pos++;
+                return SCAN_ROW_END;
+            }
+
+            char next = buf[pos + 1];
+            if (next == CSV_SPEC_CHAR) {
+                buf[write++] = CSV_SPEC_CHAR;
+                pos += 2;
+                continue;
+            }
+
+            pos++;
+            if (next == CSV_SEP_CHAR) {
+                pos++;
+                return SCAN_NEXT;
+            } else if (isLineEnd(next)) {
+                return SCAN_ROW_END;
+            }
+            throw new IllegalStateException(ERR_ILLEGAL_DATA);
+        }
+    }
+
+    private static boolean isLineEnd(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    /** 跳过[\n]、[\r\n]或[\r] */
+    private void skipLineEnd() throws IOException {
+        if (buf[pos++] == '\r' && (pos < limit || fill()) && buf[pos] == '\n') {
+            pos++;
+        }
+    }
+
+    private void addCell(int start, int end) {
+        if (cellCount == cellStarts.length) {
+            int newSize = cellCount * 2;
+            cellStarts = Arrays.copyOf(cellStarts, newSize);
+            cellEnds = Arrays.copyOf(cellEnds, newSize);
+            slices = Arrays.copyOf(slices, newSize);
+        }
+        cellStarts[cellCount] = start;
+        cellEnds[cellCount] = end;
+        cellCount++;
+    }
+
+    /**
+     * 从reader读取更多数据到缓冲区。
+     * mark之前已被消费的数据会被丢弃，需要保留的数据已经占满缓冲区时才会扩容。
+     * @return [true]读取到了新数据  [false]已到达文件结尾
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        int shift = mark;
+        if (shift > 0) {
+            System.arraycopy(buf, shift, buf, 0, limit - shift);
+            limit -= shift;
+            pos -= shift;
+            cellBegin -= shift;
+            write -= shift;
+            mark = 0;
+            for (int i = 0; i < cellCount; i++) {
+                cellStarts[i] -= shift;
+                cellEnds[i] -= shift;
+            }
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+
+        int n = reader.read(buf, limit, buf.length - limit);
+        if (n <= 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= cellCount) {
+            throw new IndexOutOfBoundsException("index=" + index + ", cellCount=" + cellCount);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Created in 2020/5/13 9:52
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 按行读取csv的分词器
+ *
+ * @see CsvTokenizer
+ * @see ByteCsvTokenizer
+ */
+public interface ICsvTokenizer extends Closeable {
+
+    /**
+     * 读取下一行
+     * @return [true]读取到一行数据  [false]已经没有更多数据
+     */
+    boolean nextRow() throws IOException;
+
+    /** 当前行的序号，从0开始计数 */
+    int getRowIndex();
+
+    /** 当前行的单元格数量 */
+    int getCellCount();
+
+    /**
+     * 获取当前行某个单元格的视图，不会创建字符串
+     * 注意：视图对象会被复用，只在下一次调用{@link #nextRow()}之前有效
+     */
+    @NonNull
+    CharSequence getCell(int index);
+
+    /** 获取当前行某个单元格的字符串副本 */
+    @NonNull
+    String getCellString(int index);
+
+    /**
+     * 设置{@link #getCellString(int)}使用的字符串驻留缓存，内容相同的单元格返回同一个String对象
+     * @param cache 为null时每次都创建新的字符串
+     */
+    void setStringCache(@Nullable StringCache cache);
+}
@@ -0,0 +1,594 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+import com.qxtx.idea.ideaexcel.poi.parser.CancelToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created in 2020/5/14 9:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 多线程读取大csv文件：内存映射文件，按行边界切分成多块，在ForkJoinPool上并行分词。
+ *
+ * <pre>
+ * 流程：
+ * 1、将文件按固定大小预切分，每一块并行统计["]的数量，以及在块开头处于/不处于双引号内两种假设下，
+ *   第一个行结束符的位置和行结束符的数量；
+ * 2、["]数量的奇偶性决定了每个预切分位置是否处于双引号内，据此确定每一块真正的起始位置（预切分位置之后的第一个行结束符），
+ *   并算出每一块的起始行序号。双引号内的换行不会被当成行边界；
+ * 3、每一块只映射一次，由一个工作线程用{@link ByteCsvTokenizer}分词，直接写入可复用的{@link CellRow}，
+ *   每{@link #BATCH_ROWS}行或{@link #BATCH_CELLS}个单元格作为一批，由调用线程交给外部回调，交付后行对象回收复用：
+ *   ①按顺序：每一块的分词结果在各自的队列中等待，按块的顺序交给外部，行序号与单线程读取一致；
+ *   ②不按顺序：哪一批先完成就先交给外部，行序号仍然是该行在文件中的真实序号。
+ *
+ * 注意：
+ * 1、只支持兼容ASCII的字符编码，见{@link CsvCharsetDetector#isAsciiCompatible(Charset)}；
+ * 2、要求双引号只出现在用双引号包裹的单元格中（RFC 4180），否则无法正确判断行边界；
+ * 3、外部回调始终在调用{@link #read(SheetInfo, ITypedReadCallback)}的线程中执行，不需要额外的同步；
+ * 4、每个线程最多有{@link #QUEUE_BATCHES}批分词结果等待交付，队列满时工作线程等待，
+ *   因此堆内存占用只与线程数有关，与块的大小、文件大小无关，每个线程约1～2MB；
+ *   被映射的文件内容不占用堆内存，同时映射的块数量不超过线程数。
+ * </pre>
+ */
+public final class ParallelCsvReader {
+
+    /** 预切分的块大小下限，块越大，映射文件和提交任务的次数越少 */
+    private static final long MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /** 预切分的块大小上限，限制同时映射的地址空间，32位进程中也能映射成功 */
+    private static final long MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /** 预切分时统计["]和行结束符使用的读取缓冲区大小 */
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    /** 一批分词结果的行数上限 */
+    private static final int BATCH_ROWS = 1024;
+
+    /** 一批分词结果的单元格数量上限，单元格很多的行较早交付 */
+    private static final int BATCH_CELLS = 16 * 1024;
+
+    /** 每个工作线程最多有几批分词结果等待交付 */
+    private static final int QUEUE_BATCHES = 2;
+
+    /** 工作线程等待队列空位时，检查是否已经停止的间隔，单位毫秒 */
+    private static final long QUEUE_POLL_MILLIS = 50;
+
+    private final File file;
+
+    private final Charset charset;
+
+    /** 文件开头BOM的长度 */
+    private final int bomLength;
+
+    private final int parallelism;
+
+    private final boolean ordered;
+
+    /** 需要读取的列，为null时读取全部列 */
+    private BitSet columns;
+
+    /** 行过滤条件，为null时读取全部行 */
+    private IRowTester rowTester;
+
+    /** 所有工作线程共用的字符串驻留缓存，为null时不使用 */
+    private StringCache stringCache;
+
+    /** 外部设置的取消对象，为null时不能取消 */
+    private CancelToken cancelToken;
+
+    /** 是否已经停止读取 */
+    private volatile boolean stopped;
+
+    /** 本次读取已经结束，工作线程不再分词 */
+    private volatile boolean closed;
+
+    /** 已经交付的批次，由工作线程复用其中的行对象 */
+    private final ConcurrentLinkedQueue<Batch> freeBatches = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param charset 文件的字符编码，必须兼容ASCII
+     * @param bomLength 文件开头需要跳过的BOM长度
+     * @param parallelism 并行线程数
+     * @param ordered [true]按文件中的顺序交付行数据  [false]按分词完成的顺序交付
+     */
+    public ParallelCsvReader(@NonNull File file, @NonNull Charset charset, int bomLength,
+                             int parallelism, boolean ordered) {
+        if (!CsvCharsetDetector.isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("不支持的字符编码：" + charset.name());
+        }
+        this.file = file;
+        this.charset = charset;
+        this.bomLength = bomLength;
+        this.parallelism = Math.max(1, parallelism);
+        this.ordered = ordered;
+    }
+
+    /**
+     * 只读取指定的列，未选中的单元格不会解码为字符串，每一行只包含选中的列，列序号不变
+     * @param columns 为null时读取全部列
+     */
+    public void setColumns(@Nullable BitSet columns) {
+        this.columns = columns == null ? null : (BitSet) columns.clone();
+    }
+
+    /**
+     * 需要读取的列
+     * @return 读取全部列时返回null
+     */
+    @Nullable
+    public BitSet getColumns() {
+        return columns == null ? null : (BitSet) columns.clone();
+    }
+
+    /**
+     * 设置行过滤条件，在工作线程中分词后立即检查，不符合条件的行不会解码为字符串，也不会回调，
+     * 之后的行序号不受影响，仍然是该行在文件中的真实序号
+     * @param tester 会在多个工作线程中同时调用，必须是线程安全的；为null时读取全部行
+     */
+    public void setRowTester(@Nullable IRowTester tester) {
+        this.rowTester = tester;
+    }
+
+    /**
+     * 设置字符串驻留缓存，所有工作线程共用，内容相同的单元格返回同一个String对象
+     * @param cache 为null时每个单元格都创建新的字符串
+     */
+    public void setStringCache(@Nullable StringCache cache) {
+        this.stringCache = cache;
+    }
+
+    /**
+     * 设置用于取消读取的对象，{@link #read(SheetInfo, ITypedReadCallback)}在每一行之间检查，
+     * {@link #spliterator(SheetInfo)}在每次{@link java.util.Spliterator#tryAdvance}时检查，取消后不再有新的行
+     * @param token 为null时不能取消
+     */
+    public void setCancelToken(@Nullable CancelToken token) {
+        this.cancelToken = token;
+    }
+
+    /**
+     * 停止读取，可以在回调中或者其他线程中调用。
+     * 当前正在回调的行结束后，{@link #read(SheetInfo, ITypedReadCallback)}立即返回，还未交付的行被丢弃
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * 读取整个文件，行数据在当前线程中交给{@link ITypedReadCallback#onRowRead(CellRow)}，
+     * 每一行只包含选中的列，行对象会被复用，需要保留时使用{@link CellRow#copy()}。
+     * 读取结束后不会调用{@link ITypedReadCallback#onFinished()}，由调用者决定
+     * @param sheet 每一行所属的sheet
+     */
+    public void read(@Nullable SheetInfo sheet, @NonNull ITypedReadCallback callback) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            List<Region> regions = split(channel, pool);
+            deliver(channel, regions, pool, sheet, callback);
+        } finally {
+            closed = true;
+            pool.shutdownNow();
+            freeBatches.clear();
+        }
+    }
+
+    /**
+     * 按行边界切分文件，返回可以按块拆分的读取，用于并行的Stream。
+     * 每一块在{@link java.util.Spliterator#trySplit()}时分配给不同的线程，在遍历时才分词，
+     * 每一行都是一个新的{@link CellRow}对象，只包含选中的列，不符合过滤条件的行被跳过。
+     * 使用结束后需要调用{@link CsvSpliterator#close()}关闭文件
+     * @param sheet 每一行所属的sheet
+     */
+    @RequiresApi(Build.VERSION_CODES.N)
+    @NonNull
+    public CsvSpliterator spliterator(@Nullable SheetInfo sheet) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Region> regions = split(raf.getChannel(), pool);
+            return new CsvSpliterator(raf, charset, sheet, columns, rowTester, stringCache, cancelToken, regions);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 按行边界切分文件
+     */
+    private List<Region> split(final FileChannel channel, ForkJoinPool pool) throws IOException {
+        final long size = channel.size();
+        List<Region> regions = new ArrayList<>();
+        if (size <= bomLength) {
+            return regions;
+        }
+
+        long dataSize = size - bomLength;
+        //每个线程约4块，块大小在上下限之间，分词结果按批交付，块的大小不影响堆内存占用
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, dataSize / (parallelism * 4L) + 1));
+        int chunkCount = (int) ((dataSize + chunkSize - 1) / chunkSize);
+
+        //第一步：并行统计每一块
+        List<Future<ChunkStats>> futures = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final long start = bomLength + i * chunkSize;
+            final long end = Math.min(size, start + chunkSize);
+            futures.add(pool.submit(new Callable<ChunkStats>() {
+                @Override
+                public ChunkStats call() throws IOException {
+                    return scanChunk(channel, start, end, size);
+                }
+            }));
+        }
+        List<ChunkStats> stats = new ArrayList<>(chunkCount);
+        for (Future<ChunkStats> future : futures) {
+            stats.add(await(future));
+        }
+
+        //第二步：根据["]数量的奇偶性确定每一块的真正起始位置和起始行序号
+        Region current = new Region(bomLength, 0);
+        long rowBase = 0;
+        long lastTermEnd = -1;
+        int parity = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            ChunkStats s = stats.get(i);
+            if (s.termCount[parity] > 0) {
+                if (i > 0 && s.firstTermEnd[parity] < size) {
+                    //预切分位置之后的第一个行结束符，是上一块最后一行的结尾
+                    current.end = s.firstTermEnd[parity];
+                    current.rowCount++;
+                    regions.add(current);
+                    rowBase += current.rowCount;
+                    current = new Region(s.firstTermEnd[parity], rowBase);
+                    current.rowCount = s.termCount[parity] - 1;
+                } else {
+                    current.rowCount += s.termCount[parity];
+                }
+                lastTermEnd = s.lastTermEnd[parity];
+            }
+            parity ^= s.quoteParity;
+        }
+        //最后一行没有行结束符
+        if (lastTermEnd < size) {
+            current.rowCount++;
+        }
+        current.end = size;
+        regions.add(current);
+        return regions;
+    }
+
+    /**
+     * 第三步：并行分词，在当前线程中交付结果。
+     * 同时分词的块数量等于线程数，一块分词结束后才提交下一块，按顺序交付时队首的块总有线程在分词
+     */
+    private void deliver(final FileChannel channel, List<Region> regions, ForkJoinPool pool,
+                         @Nullable final SheetInfo sheet, @NonNull ITypedReadCallback callback) throws IOException {
+        //不按顺序交付时所有块共用一个队列
+        BlockingQueue<Batch> shared = ordered ? null : new ArrayBlockingQueue<Batch>(parallelism * QUEUE_BATCHES);
+        //按顺序交付时，正在分词的块的队列，按块的顺序排列
+        ArrayDeque<BlockingQueue<Batch>> pending = new ArrayDeque<>();
+
+        int submitted = 0;
+        int running = 0;
+        while (!isStopped()) {
+            while (submitted < regions.size() && running < parallelism) {
+                final Region region = regions.get(submitted++);
+                final BlockingQueue<Batch> queue = ordered ? new ArrayBlockingQueue<Batch>(QUEUE_BATCHES) : shared;
+                pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        tokenize(channel, region, sheet, queue);
+                    }
+                });
+                if (ordered) {
+                    pending.addLast(queue);
+                }
+                running++;
+            }
+            if (running == 0) {
+                return;
+            }
+
+            Batch batch = take(ordered ? pending.peekFirst() : shared);
+            if (batch.error != null) {
+                throwError(batch.error);
+            }
+            for (int i = 0; i < batch.size; i++) {
+                callback.onRowRead(batch.rows[i]);
+                if (isStopped()) {
+                    return;
+                }
+            }
+            if (batch.last) {
+                running--;
+                if (ordered) {
+                    pending.pollFirst();
+                }
+            }
+            batch.clear();
+            freeBatches.offer(batch);
+        }
+    }
+
+    private boolean isStopped() {
+        return stopped || (cancelToken != null && cancelToken.isCancelled());
+    }
+
+    /**
+     * 在工作线程中分词一块数据：只映射一次，每一行直接写入批次中复用的行对象，攒满一批就放入队列。
+     * 最后一批带有结束标记，出现异常时异常随最后一批交给调用线程
+     */
+    private void tokenize(@NonNull FileChannel channel, @NonNull Region region, @Nullable SheetInfo sheet,
+                          @NonNull BlockingQueue<Batch> queue) {
+        Batch batch = obtainBatch();
+        try {
+            long length = region.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("单行数据过大，无法并行解析");
+            }
+            if (length > 0) {
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, region.start, length);
+                try (ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(data, charset)) {
+                    tokenizer.setStringCache(stringCache);
+                    long rowIndex = region.rowBase;
+                    int cells = 0;
+                    while (!closed && !isStopped() && tokenizer.nextRow()) {
+                        long index = rowIndex++;
+                        //不符合过滤条件的行只占用行序号
+                        if (rowTester != null && !rowTester.test(tokenizer, index)) {
+                            continue;
+                        }
+                        CellRow row = batch.next();
+                        row.reset(sheet, (int) index, false, null);
+                        int cellCount = tokenizer.getCellCount();
+                        for (int i = 0; i < cellCount; i++) {
+                            if (columns == null || columns.get(i)) {
+                                row.addString(i, tokenizer.getCellString(i));
+                            }
+                        }
+                        cells += row.getCellCount();
+                        if (batch.size == BATCH_ROWS || cells >= BATCH_CELLS) {
+                            if (!put(queue, batch)) {
+                                return;
+                            }
+                            batch = obtainBatch();
+                            cells = 0;
+                        }
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            batch.error = e;
+        }
+        batch.last = true;
+        put(queue, batch);
+    }
+
+    /**
+     * 把一批分词结果放入队列，队列满时等待
+     * @return [false]读取已经结束，这一批被丢弃
+     */
+    private boolean put(@NonNull BlockingQueue<Batch> queue, @NonNull Batch batch) {
+        try {
+            while (!queue.offer(batch, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @NonNull
+    private static Batch take(@NonNull BlockingQueue<Batch> queue) throws IOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("读取被中断", e);
+        }
+    }
+
+    @NonNull
+    private Batch obtainBatch() {
+        Batch batch = freeBatches.poll();
+        return batch != null ? batch : new Batch();
+    }
+
+    /**
+     * 统计[start, end)这一块的["]数量和行结束符，按缓冲区顺序读取，不映射文件。
+     * 行结束符为[\n]，或者后面不是[\n]的[\r]，位于块末尾的[\r]需要多读取一个字节判断。
+     */
+    private static ChunkStats scanChunk(FileChannel channel, long start, long end, long size) throws IOException {
+        long readEnd = Math.min(size, end + 1);
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] data = buffer.array();
+
+        ChunkStats stats = new ChunkStats();
+        //以块开头不在双引号内为基准，q为当前位置之前["]数量的奇偶性；
+        //假设块开头在双引号内时，奇偶性相反
+        int q = 0;
+        //上一个字节是[\r]时，[\r]处的奇偶性，否则为-1
+        int crParity = -1;
+        long crEnd = 0;
+        long position = start;
+        while (position < readEnd) {
+            buffer.clear();
+            buffer.limit((int) Math.min(SCAN_BUFFER_SIZE, readEnd - position));
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                byte b = data[i];
+                if (crParity >= 0) {
+                    if (b != '\n') {
+                        stats.addTerm(crParity, crEnd);
+                    }
+                    crParity = -1;
+                }
+                long offset = position + i;
+                if (offset >= end) {
+                    //多读取的字节只用于判断块末尾的[\r]
+                    break;
+                }
+                if (b == '"') {
+                    q ^= 1;
+                } else if (b == '\n') {
+                    //q为0时，在[块开头不在双引号内]的假设下这是一个行结束符；q为1时，在另一种假设下是
+                    stats.addTerm(q, offset + 1);
+                } else if (b == '\r') {
+                    crParity = q;
+                    crEnd = offset + 1;
+                }
+            }
+            position += n;
+        }
+        //文件末尾的[\r]
+        if (crParity >= 0) {
+            stats.addTerm(crParity, crEnd);
+        }
+        stats.quoteParity = q;
+        return stats;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("读取被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void throwError(@NonNull Throwable error) throws IOException {
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        }
+        throw new IOException(error);
+    }
+
+    /** 行过滤条件，见{@link #setRowTester(IRowTester)} */
+    public interface IRowTester {
+
+        /**
+         * 检查分词器的当前行
+         * @param rowIndex 当前行在整个文件中的行序号
+         * @return [false]丢弃这一行
+         */
+        boolean test(@NonNull ICsvTokenizer tokenizer, long rowIndex);
+    }
+
+    /** 预切分块的统计结果，下标为块开头处于双引号内的假设（0不在，1在） */
+    private static final class ChunkStats {
+        int quoteParity;
+        final long[] firstTermEnd = {-1, -1};
+        final long[] lastTermEnd = {-1, -1};
+        final long[] termCount = new long[2];
+
+        /** 在块开头处于双引号内的假设为parity时，记录一个在termEnd处结束的行结束符 */
+        void addTerm(int parity, long termEnd) {
+            if (termCount[parity] == 0) {
+                firstTermEnd[parity] = termEnd;
+            }
+            termCount[parity]++;
+            lastTermEnd[parity] = termEnd;
+        }
+    }
+
+    /** 一批分词结果，交付后回收，行对象由下一批复用 */
+    private static final class Batch {
+        final CellRow[] rows = new CellRow[BATCH_ROWS];
+        int size;
+
+        /** 是否为一块中的最后一批 */
+        boolean last;
+
+        /** 分词时出现的异常，只出现在最后一批中 */
+        Throwable error;
+
+        /** 下一个可以写入的行对象 */
+        @NonNull
+        CellRow next() {
+            CellRow row = rows[size];
+            if (row == null) {
+                row = new CellRow();
+                rows[size] = row;
+            }
+            size++;
+            return row;
+        }
+
+        void clear() {
+            size = 0;
+            last = false;
+            error = null;
+        }
+    }
+
+    /** 按行边界切分后的一块数据 */
+    static final class Region {
+        final long start;
+        long end;
+
+        /** 第一行在文件中的行序号 */
+        final long rowBase;
+
+        /** 预先统计的行数 */
+        long rowCount;
+
+        Region(long start, long rowBase) {
+            this.start = start;
+            this.rowBase = rowBase;
+        }
+
+        long length() {
+            return end - start;
+        }
+    }
+}
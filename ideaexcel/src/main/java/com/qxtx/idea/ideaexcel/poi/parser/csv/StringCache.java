@@ -0,0 +1,76 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Created in 2020/5/21 10:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 容量固定的字符串驻留缓存，内容相同的单元格返回同一个String对象。
+ *
+ * <pre>
+ * csv中取值很少的列（如类型、状态、城市）每一行都会创建内容相同的字符串，回调方保留这些行时，重复的字符串占用大量堆内存。
+ * 缓存按内容的哈希值直接映射到固定的槽位：
+ * 1、命中时直接返回已有的字符串，不创建新对象；
+ * 2、未命中时创建字符串并替换槽位中原有的字符串，缓存大小不会增长，不会因为取值很多的列（如编号）而占用更多内存；
+ * 3、超过{@link #MAX_LENGTH}的内容通常不会重复，直接创建字符串，不进入缓存。
+ *
+ * 可以在多个线程之间共享：槽位中只保存不可变的String，线程之间看到旧的槽位内容只会导致一次未命中，不影响结果。
+ * </pre>
+ *
+ * @see com.qxtx.idea.ideaexcel.poi.parser.ReadOptions.Builder#setCsvStringCacheSize(int)
+ */
+public final class StringCache {
+
+    /** 进入缓存的字符串的最大长度 */
+    public static final int MAX_LENGTH = 64;
+
+    private final String[] slots;
+
+    private final int mask;
+
+    /** @param size 槽位数量，向上取整为2的幂 */
+    public StringCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        slots = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    /** 字符数组中一段内容对应的字符串 */
+    @NonNull
+    public String get(@NonNull char[] chars, int start, int length) {
+        if (length == 0) {
+            return "";
+        }
+        if (length > MAX_LENGTH) {
+            return new String(chars, start, length);
+        }
+
+        //与String.hashCode()的计算方式相同
+        int hash = 0;
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String cached = slots[slot];
+        if (cached != null && cached.length() == length && cached.hashCode() == hash
+                && matches(cached, chars, start)) {
+            return cached;
+        }
+
+        String value = new String(chars, start, length);
+        slots[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(@NonNull String value, @NonNull char[] chars, int start) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            if (value.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,212 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Created in 2020/5/15 10:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 在堆外保存共享字符串表，见{@link ISharedStringsStore.Storage#OFF_HEAP}、{@link ISharedStringsStore.Storage#MAPPED_FILE}
+ *
+ * <pre>
+ * 字符串以[4字节长度 + utf-8编码]的形式依次写入固定大小的数据块，数据块为直接内存，或者是映射到内存的临时文件；
+ * 堆中只保存每个字符串的位置（数据块序号 + 块内偏移），每个字符串8字节。
+ * 读取时按位置解码，最近读取的字符串按序号保存在固定大小的缓存中，重复读取同一个序号时直接返回同一个String对象，
+ * 缓存大小固定，内存占用不会随读取增长。
+ * Android（ART）的直接内存也分配在Java堆中，只有映射文件才能真正减少堆内存占用。
+ * </pre>
+ */
+public final class BufferSharedStringsStore implements ISharedStringsStore {
+
+    /** 数据块大小，超过此大小的字符串单独使用一个数据块 */
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** 字符串缓存的槽位数量 */
+    private static final int CACHE_SIZE = 4096;
+
+    /** 临时文件，只在映射文件模式下有效 */
+    private final File file;
+
+    private final RandomAccessFile raf;
+
+    /** 临时文件已映射的长度 */
+    private long mappedSize;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    /** 当前写入的数据块 */
+    private ByteBuffer current;
+
+    /** 每个字符串的位置：高32位为数据块序号，低32位为块内偏移 */
+    private long[] positions = new long[1024];
+
+    private int size;
+
+    /** 编码用的缓冲区 */
+    private byte[] scratch = new byte[256];
+
+    /** 按序号直接映射的字符串缓存，槽位数量为2的幂 */
+    private final CachedString[] cache = new CachedString[CACHE_SIZE];
+
+    private BufferSharedStringsStore(@Nullable File file, @Nullable RandomAccessFile raf) {
+        this.file = file;
+        this.raf = raf;
+    }
+
+    /** 使用直接内存保存，只在JVM中位于堆外，见{@link ISharedStringsStore.Storage#OFF_HEAP} */
+    @NonNull
+    public static BufferSharedStringsStore offHeap() {
+        return new BufferSharedStringsStore(null, null);
+    }
+
+    /**
+     * 使用映射到内存的临时文件保存，关闭时删除临时文件
+     * @param dir 临时文件所在的目录，为null时使用系统默认的临时目录
+     */
+    @NonNull
+    public static BufferSharedStringsStore mappedFile(@Nullable File dir) throws IOException {
+        File file = File.createTempFile("sst", ".tmp", dir);
+        try {
+            return new BufferSharedStringsStore(file, new RandomAccessFile(file, "rw"));
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    @Override
+    public void add(@NonNull CharSequence text) throws IOException {
+        int len = encode(text);
+        if (current == null || current.remaining() < len + 4) {
+            current = allocate(Math.max(CHUNK_SIZE, len + 4));
+            chunks.add(current);
+        }
+
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        positions[size++] = ((long) (chunks.size() - 1) << 32) | current.position();
+        current.putInt(len);
+        current.put(scratch, 0, len);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @NonNull
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        //槽位中只保存不可变对象，多个线程同时读写时最多导致一次未命中
+        int slot = index & (CACHE_SIZE - 1);
+        CachedString cached = cache[slot];
+        if (cached != null && cached.index == index) {
+            return cached.value;
+        }
+
+        long position = positions[index];
+        //使用副本读取，不修改数据块的位置，多个线程可以同时读取
+        ByteBuffer chunk = chunks.get((int) (position >>> 32)).duplicate();
+        int offset = (int) position;
+        int len = chunk.getInt(offset);
+        byte[] bytes = new byte[len];
+        chunk.position(offset + 4);
+        chunk.get(bytes);
+        String value = new String(bytes, UTF_8);
+        cache[slot] = new CachedString(index, value);
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        current = null;
+        positions = new long[0];
+        size = 0;
+        Arrays.fill(cache, null);
+        if (raf != null) {
+            //已映射的内存在被回收后才会释放，删除文件不影响映射
+            raf.close();
+            file.delete();
+        }
+    }
+
+    @NonNull
+    private ByteBuffer allocate(int capacity) throws IOException {
+        if (raf == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, mappedSize, capacity);
+        mappedSize += capacity;
+        return buffer;
+    }
+
+    /**
+     * 将字符串以utf-8编码写入{@link #scratch}，不成对的代理字符替换为[?]
+     * @return 编码后的字节数
+     */
+    private int encode(@NonNull CharSequence text) {
+        int length = text.length();
+        //每个字符最多3个字节
+        if (scratch.length < length * 3) {
+            scratch = new byte[Math.max(length * 3, scratch.length * 2)];
+        }
+
+        byte[] out = scratch;
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out[n++] = (byte) c;
+            } else if (c < 0x800) {
+                out[n++] = (byte) (0xC0 | (c >> 6));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                out[n++] = (byte) (0xF0 | (cp >> 18));
+                out[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[n++] = '?';
+            } else {
+                out[n++] = (byte) (0xE0 | (c >> 12));
+                out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return n;
+    }
+
+    /** 缓存中的一个字符串，不可变 */
+    private static final class CachedString {
+
+        final int index;
+
+        final String value;
+
+        CachedString(int index, @NonNull String value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created in 2020/5/15 9:55
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 在堆中保存共享字符串表，见{@link ISharedStringsStore.Storage#HEAP}
+ */
+public final class HeapSharedStringsStore implements ISharedStringsStore {
+
+    private final List<String> items = new ArrayList<>();
+
+    @Override
+    public void add(@NonNull CharSequence text) {
+        items.add(text.toString());
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @NonNull
+    @Override
+    public String get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public void close() {
+        items.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Created in 2020/5/15 9:40
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description xlsx共享字符串表（sharedStrings.xml）的存储。
+ *
+ * <pre>
+ * 解析sharedStrings.xml时依次调用{@link #add(CharSequence)}写入，写入完成后可以在多个线程中同时调用{@link #get(int)}读取。
+ * 使用完毕后必须调用{@link #close()}释放存储空间。
+ * </pre>
+ *
+ * @see HeapSharedStringsStore
+ * @see BufferSharedStringsStore
+ */
+public interface ISharedStringsStore extends Closeable {
+
+    /** 共享字符串表的存储方式 */
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Storage {
+        /** 保存为String数组，读取最快，内存占用与不重复字符串的数量成正比 */
+        int HEAP = 0;
+        /**
+         * 以utf-8编码保存在直接内存（ByteBuffer.allocateDirect）中，按序号读取时才创建字符串。
+         * 只适用于JVM，总大小受-XX:MaxDirectMemorySize限制；Android（ART）的直接内存同样分配在Java堆中，
+         * 不能减少堆内存占用，Android中请使用{@link #MAPPED_FILE}
+         */
+        int OFF_HEAP = 1;
+        /** 以utf-8编码保存在映射到内存的临时文件中，内存不足时由系统换出到磁盘，不占用Java堆，Android中推荐使用 */
+        int MAPPED_FILE = 2;
+    }
+
+    /** 在末尾追加一个字符串，序号为追加之前的{@link #size()} */
+    void add(@NonNull CharSequence text) throws IOException;
+
+    /** 字符串数量 */
+    int size();
+
+    /**
+     * 根据序号获取字符串
+     * @throws IndexOutOfBoundsException 序号超出范围
+     */
+    @NonNull
+    String get(int index);
+}
@@ -0,0 +1,106 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+
+import org.apache.poi.util.SAXHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Created in 2020/5/15 11:05
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 流式解析sharedStrings.xml，每解析出一个字符串就写入{@link ISharedStringsStore}，不在堆中保留整张表。
+ *
+ * <pre>
+ * 每个[si]节点对应一个字符串，富文本[r]中所有[t]的内容拼接为一个字符串；
+ * 注音[rPh]不是单元格显示的内容，忽略。
+ * </pre>
+ */
+public final class SharedStringsParser extends DefaultHandler {
+
+    private final ISharedStringsStore store;
+
+    private final StringBuilder text = new StringBuilder();
+
+    /** 是否处于[si]中 */
+    private boolean inItem;
+
+    /** 是否处于[t]中 */
+    private boolean inText;
+
+    /** 是否处于[rPh]中 */
+    private boolean inPhonetic;
+
+    private SharedStringsParser(@NonNull ISharedStringsStore store) {
+        this.store = store;
+    }
+
+    /** 解析sharedStrings.xml，写入store */
+    public static void parse(@NonNull InputStream in, @NonNull ISharedStringsStore store)
+            throws IOException, SAXException {
+        try {
+            XMLReader reader = SAXHelper.newXMLReader();
+            reader.setContentHandler(new SharedStringsParser(store));
+            reader.parse(new InputSource(in));
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "si":
+                inItem = true;
+                text.setLength(0);
+                break;
+            case "t":
+                inText = inItem && !inPhonetic;
+                break;
+            case "rPh":
+                inPhonetic = true;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        switch (localName) {
+            case "si":
+                inItem = false;
+                try {
+                    store.add(text);
+                } catch (IOException e) {
+                    throw new SAXException(e);
+                }
+                break;
+            case "t":
+                inText = false;
+                break;
+            case "rPh":
+                inPhonetic = false;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (inText) {
+            text.append(ch, start, length);
+        }
+    }
+}
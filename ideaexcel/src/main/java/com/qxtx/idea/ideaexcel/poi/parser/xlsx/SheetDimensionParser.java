@@ -0,0 +1,70 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.SAXHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Created in 2020/5/15 16:50
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 读取sheet的xml中的[dimension]节点。
+ * [dimension]位于[sheetData]之前，读取到[dimension]或者[sheetData]后立即停止解析，不会读取单元格数据
+ */
+public final class SheetDimensionParser extends DefaultHandler {
+
+    /** 提前停止解析 */
+    private static final SAXException STOP = new SAXException("stop");
+
+    private String ref;
+
+    private SheetDimensionParser() {
+    }
+
+    /**
+     * @return sheet的范围，如A1:G100；没有[dimension]节点时返回null
+     */
+    @Nullable
+    public static CellRangeAddress parse(@NonNull InputStream in) throws IOException, SAXException {
+        SheetDimensionParser handler = new SheetDimensionParser();
+        try {
+            XMLReader reader = SAXHelper.newXMLReader();
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(in));
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        } catch (SAXException e) {
+            if (e != STOP) {
+                throw e;
+            }
+        }
+
+        if (handler.ref == null || handler.ref.isEmpty()) {
+            return null;
+        }
+        return CellRangeAddress.valueOf(handler.ref);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if ("dimension".equals(localName)) {
+            ref = attributes.getValue("ref");
+            throw STOP;
+        } else if ("sheetData".equals(localName)) {
+            throw STOP;
+        }
+    }
+}
@@ -0,0 +1,898 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellFormat;
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+import com.qxtx.idea.ideaexcel.poi.parser.RowSelector;
+
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Created in 2020/5/20 9:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 解析xlsx中一张sheet的xml，直接在解压后的字节流上扫描，不经过通用的SAX解析器。
+ *
+ * <pre>
+ * sheet的xml结构固定，只需要识别[row]、[c]、[v]、[is]、[t]、[rPh]几种节点，其他节点直接跳过：
+ * 1、节点名和属性在字节层面比较，行号、列序号、单元格类型、样式序号直接从字节计算，不创建字符串；
+ * 2、只有单元格的值会被解码（utf-8和实体引用），写入可复用的字符数组；
+ * 3、数值直接从字符数组解析为double，共享字符串的序号直接解析为int，不经过字符串；
+ * 4、公式[f]的内容不需要，使用缓存的计算结果[v]；
+ * 5、数字格式按样式序号[s]缓存，每种样式只查找一次，数值转换为字符串推迟到读取字符串时，见{@link CellRow#getString(int)}。
+ *
+ * 单元格类型的规则：
+ * 1、共享字符串[s]、行内字符串[inlineStr]、公式字符串[str]：字符串；
+ * 2、布尔值[b]：布尔值；
+ * 3、错误[e]：错误，内容如#DIV/0!；
+ * 4、数值：数值，单元格样式中的数字格式是日期格式时为日期。
+ * 行内字符串中的注音[rPh]不是单元格显示的内容，忽略。
+ *
+ * 单元格按引用[r]中的列序号保存，空缺的列不会占用任何空间，很宽的稀疏sheet也不会按列数分配内存。
+ * 指定了需要读取的列时，其他列的单元格直接跳过，不会解码值，也不会查找共享字符串和数字格式；
+ * 范围之外的行同样直接跳过，条件列不符合过滤条件时，本行后面的单元格也直接跳过，见{@link RowSelector}；
+ * 回调的行数达到上限或者读取被取消后立即停止扫描，后面的数据不再解压。
+ *
+ * 注意：只支持utf-8编码的xml（xlsx中的xml都是utf-8编码），非线程安全，每张sheet使用一个新的对象。
+ * </pre>
+ */
+public final class SheetXmlScanner {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 单元格类型，即[t]属性 */
+    private static final int TYPE_NUMBER = 0;
+    private static final int TYPE_SHARED_STRING = 1;
+    private static final int TYPE_BOOLEAN = 2;
+    private static final int TYPE_ERROR = 3;
+    private static final int TYPE_STRING = 4;
+
+    private static final byte[] NAME_ROW = {'r', 'o', 'w'};
+    private static final byte[] NAME_CELL = {'c'};
+    private static final byte[] NAME_VALUE = {'v'};
+    private static final byte[] NAME_INLINE = {'i', 's'};
+    private static final byte[] NAME_TEXT = {'t'};
+    private static final byte[] NAME_PHONETIC = {'r', 'P', 'h'};
+
+    /** 快速解析double时可以精确表示的10的幂 */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    @Nullable
+    private final StylesTable styles;
+
+    private final ISharedStringsStore sharedStrings;
+
+    @Nullable
+    private final SheetInfo sheet;
+
+    /** 是否使用1904日期系统 */
+    private final boolean date1904;
+
+    /** 需要读取的行和列，为null时读取全部 */
+    @Nullable
+    private final RowSelector selector;
+
+    private final ITypedReadCallback output;
+
+    private final DataFormatter formatter = new DataFormatter();
+
+    /** 按样式序号缓存的数字格式 */
+    private CellFormat[] formats = new CellFormat[16];
+
+    /** 样式序号对应的数字格式是否已经查找过，数字格式可能为null */
+    private boolean[] resolved = new boolean[16];
+
+    /** 一行数据，每一行复用 */
+    private final CellRow row = new CellRow();
+
+    private InputStream in;
+
+    private final byte[] buf = new byte[BUFFER_SIZE];
+
+    private int pos;
+
+    private int limit;
+
+    /** 当前节点名，去掉命名空间前缀 */
+    private final byte[] name = new byte[16];
+
+    private int nameLength;
+
+    /** 当前属性名，去掉命名空间前缀 */
+    private final byte[] attrName = new byte[16];
+
+    private int attrNameLength;
+
+    /** 当前属性值 */
+    private byte[] attrValue = new byte[32];
+
+    private int attrValueLength;
+
+    /** 当前节点是否自闭合 */
+    private boolean selfClosing;
+
+    /** 单元格的值，解码后的字符 */
+    private char[] text = new char[256];
+
+    private int textLength;
+
+    /** 是否正在收集单元格的值 */
+    private boolean textOpen;
+
+    /** 是否处于行内字符串[is]中 */
+    private boolean inlineOpen;
+
+    /** 是否处于注音[rPh]中 */
+    private boolean phoneticOpen;
+
+    /** 当前行序号 */
+    private int rowNum;
+
+    /** 下一个没有[r]属性的行使用的行序号 */
+    private int nextRowNum;
+
+    /** 当前单元格的列序号，来自单元格引用[r]，没有[r]属性时为上一个单元格的下一列 */
+    private int column;
+
+    /** 当前单元格是否被跳过 */
+    private boolean skipCell;
+
+    /** 当前单元格的类型 */
+    private int cellType;
+
+    /** 当前单元格的样式序号，没有[s]属性时为-1 */
+    private int styleIndex;
+
+    /** 是否已经提前停止扫描 */
+    private boolean stopped;
+
+    /**
+     * @param styles 样式表，用于格式化数值，为null时数值原样输出
+     * @param sharedStrings 共享字符串表
+     * @param sheet 正在读取的sheet
+     * @param date1904 是否使用1904日期系统，见{@link WorkbookPropertiesParser}
+     * @param selector 需要读取的行和列，为null时读取全部，见{@link RowSelector#create}
+     * @param output 每一行数据的输出
+     */
+    public SheetXmlScanner(@Nullable StylesTable styles, @NonNull ISharedStringsStore sharedStrings,
+                           @Nullable SheetInfo sheet, boolean date1904, @Nullable RowSelector selector,
+                           @NonNull ITypedReadCallback output) {
+        this.styles = styles;
+        this.sharedStrings = sharedStrings;
+        this.sheet = sheet;
+        this.date1904 = date1904;
+        this.selector = selector;
+        this.output = output;
+    }
+
+    /**
+     * 扫描sheet的xml，每一行交给输出。
+     * 行数达到上限或者读取被取消时提前返回，见{@link #isStopped()}
+     */
+    public void parse(@NonNull InputStream in) throws IOException {
+        this.in = in;
+        pos = 0;
+        limit = 0;
+        while (!stopped) {
+            if (textOpen) {
+                if (!readText()) {
+                    return;
+                }
+            } else if (!skipToTag()) {
+                return;
+            }
+            readTag();
+        }
+    }
+
+    /** 是否因为行数达到上限或者读取被取消而提前停止了扫描 */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /** 读取[&lt;]之后的一个节点 */
+    private void readTag() throws IOException {
+        int b = read();
+        switch (b) {
+            case '/':
+                readName();
+                skipTag();
+                onEndElement();
+                break;
+            case '?':
+                skipPast('?', '>');
+                break;
+            case '!':
+                readDeclaration();
+                break;
+            case -1:
+                break;
+            default:
+                pos--;
+                readName();
+                onStartElement();
+                break;
+        }
+    }
+
+    private void onStartElement() throws IOException {
+        if (nameIs(NAME_ROW)) {
+            startRow();
+        } else if (nameIs(NAME_CELL)) {
+            startCell();
+        } else if (nameIs(NAME_VALUE)) {
+            skipTag();
+            textLength = 0;
+            textOpen = !skipCell;
+            if (selfClosing) {
+                endValue();
+            }
+        } else if (nameIs(NAME_INLINE)) {
+            skipTag();
+            textLength = 0;
+            inlineOpen = true;
+            if (selfClosing) {
+                endInline();
+            }
+        } else if (nameIs(NAME_TEXT)) {
+            skipTag();
+            textOpen = inlineOpen && !phoneticOpen && !skipCell && !selfClosing;
+        } else if (nameIs(NAME_PHONETIC)) {
+            skipTag();
+            phoneticOpen = !selfClosing;
+        } else {
+            skipTag();
+        }
+    }
+
+    private void onEndElement() {
+        if (nameIs(NAME_ROW)) {
+            endRow();
+        } else if (nameIs(NAME_VALUE)) {
+            endValue();
+        } else if (nameIs(NAME_INLINE)) {
+            endInline();
+        } else if (nameIs(NAME_TEXT)) {
+            textOpen = false;
+        } else if (nameIs(NAME_PHONETIC)) {
+            phoneticOpen = false;
+        }
+    }
+
+    private void startRow() throws IOException {
+        int r = -1;
+        while (readAttribute()) {
+            if (attrNameLength == 1 && attrName[0] == 'r') {
+                r = parseInt(attrValue, attrValueLength);
+            }
+        }
+        rowNum = r > 0 ? r - 1 : nextRowNum;
+        nextRowNum = rowNum + 1;
+        checkStopped();
+        if (stopped) {
+            return;
+        }
+        if (selector != null) {
+            selector.beginRow(rowNum);
+        }
+        row.reset(sheet, rowNum, date1904, formatter);
+        column = -1;
+        if (selfClosing) {
+            endRow();
+        }
+    }
+
+    private void endRow() {
+        if (selector == null) {
+            output.onRowRead(row);
+            return;
+        }
+        if (selector.endRow(row)) {
+            output.onRowRead(row);
+            selector.onRowRead();
+            //达到上限后不再读取后面的数据
+            checkStopped();
+        }
+    }
+
+    private void startCell() throws IOException {
+        int previous = column;
+        column = previous + 1;
+        cellType = TYPE_NUMBER;
+        styleIndex = -1;
+        while (readAttribute()) {
+            if (attrNameLength != 1) {
+                continue;
+            }
+            switch (attrName[0]) {
+                case 'r':
+                    column = parseColumn(attrValue, attrValueLength, previous);
+                    break;
+                case 't':
+                    cellType = parseCellType(attrValue, attrValueLength);
+                    break;
+                case 's':
+                    styleIndex = parseInt(attrValue, attrValueLength);
+                    break;
+                default:
+                    break;
+            }
+        }
+        //范围之外的行、未选中的列、不符合过滤条件的行中剩余的单元格，不解码值，也不读取数字格式
+        skipCell = selector != null && !selector.isCellSelected(column);
+        textOpen = false;
+        inlineOpen = false;
+        phoneticOpen = false;
+    }
+
+    /** [v]结束，按单元格类型保存单元格的值 */
+    private void endValue() {
+        textOpen = false;
+        if (skipCell) {
+            return;
+        }
+
+        switch (cellType) {
+            case TYPE_NUMBER:
+                if (textLength == 0) {
+                    row.addBlank(column);
+                } else {
+                    addNumber();
+                }
+                break;
+            case TYPE_SHARED_STRING:
+                if (textLength == 0) {
+                    return;
+                }
+                row.addString(column, sharedStrings.get(parseInt(text, textLength)));
+                break;
+            case TYPE_BOOLEAN:
+                row.addBoolean(column, textLength == 0 || text[0] != '0');
+                break;
+            case TYPE_ERROR:
+                row.addError(column, new String(text, 0, textLength));
+                break;
+            case TYPE_STRING:
+            default:
+                row.addString(column, new String(text, 0, textLength));
+                break;
+        }
+        onCellAdded();
+    }
+
+    /** [is]结束，富文本的行内字符串由多个[t]拼接而成 */
+    private void endInline() {
+        inlineOpen = false;
+        textOpen = false;
+        if (skipCell) {
+            return;
+        }
+        row.addString(column, new String(text, 0, textLength));
+        onCellAdded();
+    }
+
+    /** 条件列读取后立即检查过滤条件 */
+    private void onCellAdded() {
+        if (selector != null) {
+            selector.onCellAdded(row, column);
+        }
+    }
+
+    private void checkStopped() {
+        if (selector != null && selector.isStopped()) {
+            stopped = true;
+        }
+    }
+
+    private void addNumber() {
+        row.addNumber(column, parseDouble(text, textLength), getFormat(styleIndex < 0 ? 0 : styleIndex));
+    }
+
+    /** 样式对应的数字格式，每种样式只查找一次 */
+    @Nullable
+    private CellFormat getFormat(int style) {
+        if (styles == null || style >= styles.getNumCellStyles()) {
+            return null;
+        }
+        if (style >= formats.length) {
+            formats = Arrays.copyOf(formats, Math.max(style + 1, formats.length * 2));
+            resolved = Arrays.copyOf(resolved, formats.length);
+        }
+        if (!resolved[style]) {
+            formats[style] = readFormat(styles.getStyleAt(style));
+            resolved[style] = true;
+        }
+        return formats[style];
+    }
+
+    @Nullable
+    private static CellFormat readFormat(@Nullable XSSFCellStyle style) {
+        if (style == null) {
+            return null;
+        }
+        int formatIndex = style.getDataFormat();
+        String formatString = style.getDataFormatString();
+        if (formatString == null) {
+            formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+        }
+        return new CellFormat(formatIndex, formatString);
+    }
+
+    //========================== 字节扫描 ==========================
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+        pos = 0;
+        limit = Math.max(0, n);
+        return n > 0;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos++] & 0xff;
+    }
+
+    /**
+     * 跳过节点之间的内容，直到[&lt;]之后
+     * @return [false]已经到达数据结尾
+     */
+    private boolean skipToTag() throws IOException {
+        while (true) {
+            for (int i = pos; i < limit; i++) {
+                if (buf[i] == '<') {
+                    pos = i + 1;
+                    return true;
+                }
+            }
+            pos = limit;
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 读取单元格的值，直到[&lt;]之后，解码utf-8和实体引用，[\r\n]、[\r]转换为[\n]
+     * @return [false]已经到达数据结尾
+     */
+    private boolean readText() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return false;
+            }
+            int b = buf[pos++];
+            if (b >= 0) {
+                switch (b) {
+                    case '<':
+                        return true;
+                    case '&':
+                        readEntity();
+                        break;
+                    case '\r':
+                        if (pos < limit || fill()) {
+                            if (buf[pos] == '\n') {
+                                pos++;
+                            }
+                        }
+                        appendChar('\n');
+                        break;
+                    default:
+                        appendChar((char) b);
+                        break;
+                }
+            } else {
+                appendCodePoint(readUtf8(b & 0xff));
+            }
+        }
+    }
+
+    /** 解码一个多字节的utf-8字符，first为第一个字节 */
+    private int readUtf8(int first) throws IOException {
+        int count;
+        int codePoint;
+        if ((first & 0xe0) == 0xc0) {
+            count = 1;
+            codePoint = first & 0x1f;
+        } else if ((first & 0xf0) == 0xe0) {
+            count = 2;
+            codePoint = first & 0x0f;
+        } else if ((first & 0xf8) == 0xf0) {
+            count = 3;
+            codePoint = first & 0x07;
+        } else {
+            return 0xfffd;
+        }
+        for (int i = 0; i < count; i++) {
+            int b = read();
+            if ((b & 0xc0) != 0x80) {
+                if (b >= 0) {
+                    pos--;
+                }
+                return 0xfffd;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3f);
+        }
+        return codePoint;
+    }
+
+    /** 解码[&amp;]之后的实体引用 */
+    private void readEntity() throws IOException {
+        attrValueLength = 0;
+        int b;
+        while ((b = read()) >= 0 && b != ';' && attrValueLength < 12) {
+            appendAttrValue(b);
+        }
+        byte[] v = attrValue;
+        int len = attrValueLength;
+        if (len >= 2 && v[0] == '#') {
+            int codePoint = 0;
+            boolean hex = v[1] == 'x' || v[1] == 'X';
+            for (int i = hex ? 2 : 1; i < len; i++) {
+                int digit = Character.digit(v[i], hex ? 16 : 10);
+                if (digit < 0) {
+                    codePoint = 0xfffd;
+                    break;
+                }
+                codePoint = codePoint * (hex ? 16 : 10) + digit;
+            }
+            appendCodePoint(Character.isValidCodePoint(codePoint) ? codePoint : 0xfffd);
+        } else if (len == 3 && v[0] == 'a' && v[1] == 'm' && v[2] == 'p') {
+            appendChar('&');
+        } else if (len == 2 && v[0] == 'l' && v[1] == 't') {
+            appendChar('<');
+        } else if (len == 2 && v[0] == 'g' && v[1] == 't') {
+            appendChar('>');
+        } else if (len == 4 && v[0] == 'q' && v[1] == 'u' && v[2] == 'o' && v[3] == 't') {
+            appendChar('"');
+        } else if (len == 4 && v[0] == 'a' && v[1] == 'p' && v[2] == 'o' && v[3] == 's') {
+            appendChar('\'');
+        } else {
+            appendChar('\ufffd');
+        }
+    }
+
+    /** 读取节点名，去掉命名空间前缀，只保留前16个字节 */
+    private void readName() throws IOException {
+        nameLength = 0;
+        int b;
+        while ((b = read()) >= 0) {
+            if (b == ':') {
+                nameLength = 0;
+            } else if (b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                pos--;
+                return;
+            } else if (nameLength < name.length) {
+                name[nameLength++] = (byte) b;
+            }
+        }
+    }
+
+    private boolean nameIs(@NonNull byte[] expected) {
+        if (nameLength != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (name[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取下一个属性
+     * @return [false]节点的属性已经读取完，停在[&gt;]之后，{@link #selfClosing}为节点是否自闭合
+     */
+    private boolean readAttribute() throws IOException {
+        int b;
+        //跳过空白
+        while ((b = read()) == ' ' || b == '\t' || b == '\r' || b == '\n') {
+            //nothing
+        }
+        if (b == '/') {
+            selfClosing = true;
+            skipPast('>', '>');
+            return false;
+        }
+        if (b == '>' || b < 0) {
+            selfClosing = false;
+            return false;
+        }
+
+        attrNameLength = 0;
+        while (b >= 0 && b != '=') {
+            if (b == ':') {
+                attrNameLength = 0;
+            } else if (b != ' ' && b != '\t' && b != '\r' && b != '\n' && attrNameLength < attrName.length) {
+                attrName[attrNameLength++] = (byte) b;
+            }
+            b = read();
+        }
+        //跳过引号之前的空白
+        int quote;
+        while ((quote = read()) >= 0 && quote != '"' && quote != '\'') {
+            //nothing
+        }
+        attrValueLength = 0;
+        while ((b = read()) >= 0 && b != quote) {
+            appendAttrValue(b);
+        }
+        return true;
+    }
+
+    /** 跳过节点剩余的部分，直到[&gt;]之后，引号中的[&gt;]不是节点的结尾 */
+    private void skipTag() throws IOException {
+        int quote = 0;
+        int previous = 0;
+        int b;
+        while ((b = read()) >= 0) {
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                selfClosing = previous == '/';
+                return;
+            }
+            previous = b;
+        }
+        selfClosing = false;
+    }
+
+    /** 跳过数据直到连续的两个字节first、second之后 */
+    private void skipPast(int first, int second) throws IOException {
+        int previous = 0;
+        int b;
+        while ((b = read()) >= 0) {
+            if (b == second && (previous == first || first == second)) {
+                return;
+            }
+            previous = b;
+        }
+    }
+
+    /** 读取[&lt;!]开头的注释、CDATA或者声明 */
+    private void readDeclaration() throws IOException {
+        int b = read();
+        if (b == '-') {
+            //注释：跳过到[--&gt;]之后
+            read();
+            int dashes = 0;
+            while ((b = read()) >= 0) {
+                if (b == '>' && dashes >= 2) {
+                    return;
+                }
+                dashes = b == '-' ? dashes + 1 : 0;
+            }
+        } else if (b == '[') {
+            //CDATA：跳过[CDATA[，内容原样作为文本，直到]]&gt;
+            for (int i = 0; i < 6; i++) {
+                read();
+            }
+            int brackets = 0;
+            while ((b = read()) >= 0) {
+                if (b == '>' && brackets >= 2) {
+                    if (textOpen) {
+                        //去掉已经写入的]]
+                        textLength -= 2;
+                    }
+                    return;
+                }
+                brackets = b == ']' ? brackets + 1 : 0;
+                if (textOpen) {
+                    appendCodePoint(b < 0x80 ? b : readUtf8(b));
+                }
+            }
+        } else {
+            skipTag();
+        }
+    }
+
+    private void appendChar(char c) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, textLength * 2);
+        }
+        text[textLength++] = c;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            appendChar((char) codePoint);
+        } else {
+            appendChar(Character.highSurrogate(codePoint));
+            appendChar(Character.lowSurrogate(codePoint));
+        }
+    }
+
+    private void appendAttrValue(int b) {
+        if (attrValueLength == attrValue.length) {
+            attrValue = Arrays.copyOf(attrValue, attrValueLength * 2);
+        }
+        attrValue[attrValueLength++] = (byte) b;
+    }
+
+    //========================== 值的解析 ==========================
+
+    /**
+     * 从单元格引用中解析列序号，如A1为0、AB12为27、XFD1为16383，直接按字节计算，不创建任何对象
+     * @param previous 本行上一个单元格的列序号
+     * @return 引用无效或者不大于上一个单元格时，返回上一个单元格的下一列
+     */
+    static int parseColumn(@NonNull byte[] ref, int length, int previous) {
+        int column = 0;
+        for (int i = 0; i < length; i++) {
+            int c = ref[i];
+            if (c >= 'A' && c <= 'Z') {
+                column = column * 26 + (c - 'A' + 1);
+            } else if (c >= 'a' && c <= 'z') {
+                column = column * 26 + (c - 'a' + 1);
+            } else if (c != '$') {
+                //列名之后是行号，[$]为绝对引用的标记
+                break;
+            }
+        }
+        column--;
+        return column > previous ? column : previous + 1;
+    }
+
+    private static int parseCellType(@NonNull byte[] value, int length) {
+        if (length == 1) {
+            switch (value[0]) {
+                case 's':
+                    return TYPE_SHARED_STRING;
+                case 'b':
+                    return TYPE_BOOLEAN;
+                case 'e':
+                    return TYPE_ERROR;
+                case 'n':
+                    return TYPE_NUMBER;
+                default:
+                    return TYPE_STRING;
+            }
+        }
+        //str、inlineStr以及其他类型都按字符串处理
+        return TYPE_STRING;
+    }
+
+    /**
+     * 解析非负整数
+     * @return 不是整数时返回-1
+     */
+    private static int parseInt(@NonNull byte[] value, int length) {
+        if (length == 0 || length > 9) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = value[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /** 解析共享字符串的序号 */
+    private static int parseInt(@NonNull char[] value, int length) {
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = value[i] - '0';
+            if (digit < 0 || digit > 9 || i >= 9) {
+                return Integer.parseInt(new String(value, 0, length).trim());
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * 解析数值，结果与{@link Double#parseDouble(String)}完全一致。
+     * 有效数字不超过15位、10的指数不超过22时，有效数字和10的幂都能用double精确表示，
+     * 一次乘法或除法的结果就是正确舍入的结果，不需要创建字符串；其他情况交给{@link Double#parseDouble(String)}
+     */
+    static double parseDouble(@NonNull char[] value, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (value[i] == '-' || value[i] == '+')) {
+            negative = value[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        boolean dot = false;
+        for (; i < length; i++) {
+            char c = value[i];
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa == 0 && c == '0') {
+                    //前导零不是有效数字
+                    if (dot) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (++digits > 15) {
+                    return slowParseDouble(value, length);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (dot) {
+                    exponent--;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            return slowParseDouble(value, length);
+        }
+
+        if (i < length) {
+            char c = value[i];
+            if (c != 'e' && c != 'E') {
+                return slowParseDouble(value, length);
+            }
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (value[i] == '-' || value[i] == '+')) {
+                negativeExponent = value[i] == '-';
+                i++;
+            }
+            if (i == length || length - i > 3) {
+                return slowParseDouble(value, length);
+            }
+            int e = 0;
+            for (; i < length; i++) {
+                int digit = value[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return slowParseDouble(value, length);
+                }
+                e = e * 10 + digit;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+
+        double result;
+        if (mantissa == 0) {
+            result = 0;
+        } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            result = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            result = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return slowParseDouble(value, length);
+        }
+        return negative ? -result : result;
+    }
+
+    private static double slowParseDouble(@NonNull char[] value, int length) {
+        return Double.parseDouble(new String(value, 0, length));
+    }
+}
@@ -0,0 +1,64 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+
+import org.apache.poi.util.SAXHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Created in 2020/5/16 12:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 读取workbook.xml中的[workbookPr]节点，确定表格使用的日期系统。
+ * [workbookPr]位于[sheets]之前，读取到[workbookPr]或者[sheets]后立即停止解析
+ */
+public final class WorkbookPropertiesParser extends DefaultHandler {
+
+    /** 提前停止解析 */
+    private static final SAXException STOP = new SAXException("stop");
+
+    private boolean date1904;
+
+    private WorkbookPropertiesParser() {
+    }
+
+    /**
+     * @return [true]表格使用1904日期系统
+     */
+    public static boolean isDate1904(@NonNull InputStream in) throws IOException, SAXException {
+        WorkbookPropertiesParser handler = new WorkbookPropertiesParser();
+        try {
+            XMLReader reader = SAXHelper.newXMLReader();
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(in));
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        } catch (SAXException e) {
+            if (e != STOP) {
+                throw e;
+            }
+        }
+        return handler.date1904;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if ("workbookPr".equals(localName)) {
+            String value = attributes.getValue("date1904");
+            date1904 = "1".equals(value) || "true".equalsIgnoreCase(value);
+            throw STOP;
+        } else if ("sheets".equals(localName)) {
+            throw STOP;
+        }
+    }
+}
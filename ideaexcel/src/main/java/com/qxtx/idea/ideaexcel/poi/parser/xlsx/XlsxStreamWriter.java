@@ -0,0 +1,717 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Created in 2020/5/21 15:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 流式导出xlsx表格，按行直接生成sheet的xml写入压缩文件，不创建Workbook、Row、Cell对象，也不使用临时文件。
+ *
+ * <pre>
+ * 内存占用只有一个64KB的写入缓冲区、列名表和sheet名称，不随行数增长，可以导出千万行的数据：
+ * 1、单元格的xml按utf-8编码直接写入缓冲区，缓冲区满了才交给{@link ZipOutputStream}压缩；
+ * 2、数值、布尔值、日期按类型写入，整数不经过字符串转换；日期使用内置的日期样式，在excel中显示为日期；
+ * 3、字符串默认写为行内字符串[inlineStr]；{@link StringMode#SHARED}时写入共享字符串表，
+ *   文件更小，但不重复的字符串都需要保存在内存中，只适合取值很少的数据。
+ *
+ * 示例：
+ * try (XlsxStreamWriter writer = new XlsxStreamWriter(new FileOutputStream(file))) {
+ *     writer.startSheet("info");
+ *     writer.writeRow("名称", "数量", "日期");
+ *     for (Item item : items) {
+ *         writer.startRow();
+ *         writer.writeString(item.getName());
+ *         writer.writeNumber(item.getCount());
+ *         writer.writeDate(item.getDate());
+ *         writer.endRow();
+ *     }
+ * }
+ *
+ * 注意：
+ * 1、非线程安全；sheet只能依次写入，开始下一张sheet时上一张sheet自动结束；
+ * 2、一张sheet最多{@link #MAX_ROWS}行、{@link #MAX_COLUMNS}列，超出时抛出{@link IllegalStateException}，
+ *   需要调用{@link #startSheet(String)}写入新的sheet；
+ * 3、必须调用{@link #close()}，写入工作簿、样式等其余部分后才是完整的xlsx文件，输出流也会被关闭。
+ * </pre>
+ */
+public final class XlsxStreamWriter implements Closeable {
+
+    /** 字符串的写入方式 */
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface StringMode {
+        /** 行内字符串，内存占用固定 */
+        int INLINE = 0;
+        /** 共享字符串表，相同的字符串只保存一次，内存占用随不重复的字符串数量增长 */
+        int SHARED = 1;
+    }
+
+    /** 一张sheet的最大行数 */
+    public static final int MAX_ROWS = 1048576;
+
+    /** 一张sheet的最大列数 */
+    public static final int MAX_COLUMNS = 16384;
+
+    /** sheet名称的最大长度 */
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 样式序号：常规 */
+    private static final int STYLE_GENERAL = 0;
+
+    /** 样式序号：日期 */
+    private static final int STYLE_DATE = 1;
+
+    /** 样式序号：日期时间 */
+    private static final int STYLE_DATE_TIME = 2;
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String NS_RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final String NS_PACKAGE_RELATIONSHIPS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private static final String CONTENT_TYPE_PREFIX = "application/vnd.openxmlformats-officedocument.spreadsheetml.";
+
+    private final ZipOutputStream zip;
+
+    @StringMode
+    private final int stringMode;
+
+    /** 共享字符串及其序号，只在{@link StringMode#SHARED}时使用 */
+    private final Map<String, Integer> sharedStrings;
+
+    /** 共享字符串按序号排列 */
+    private final List<String> sharedStringList;
+
+    /** 共享字符串被引用的次数 */
+    private long sharedStringRefs;
+
+    private final List<String> sheetNames = new ArrayList<>();
+
+    private final byte[] buf = new byte[BUFFER_SIZE];
+
+    private int len;
+
+    /** 列名的ascii字节，如A、AB，按需生成 */
+    private byte[][] columnNames = new byte[0][];
+
+    /** 当前行的行号（从1开始）的ascii字节 */
+    private final byte[] rowNumber = new byte[10];
+
+    private int rowNumberLength;
+
+    /** 写入整数时使用的缓冲区 */
+    private final byte[] digits = new byte[19];
+
+    private boolean sheetOpen;
+
+    private boolean rowOpen;
+
+    /** 当前sheet已经写入的行数 */
+    private int rowCount;
+
+    /** 当前行中下一个单元格的列序号 */
+    private int column;
+
+    private boolean closed;
+
+    /** 使用行内字符串写入 */
+    public XlsxStreamWriter(@NonNull OutputStream out) {
+        this(out, StringMode.INLINE);
+    }
+
+    /**
+     * @param out 输出流，关闭时一起关闭
+     * @param stringMode 字符串的写入方式，见{@link StringMode}
+     */
+    public XlsxStreamWriter(@NonNull OutputStream out, @StringMode int stringMode) {
+        this.zip = new ZipOutputStream(out);
+        //导出大量数据时压缩速度优先
+        this.zip.setLevel(Deflater.BEST_SPEED);
+        this.stringMode = stringMode;
+        if (stringMode == StringMode.SHARED) {
+            sharedStrings = new HashMap<>();
+            sharedStringList = new ArrayList<>();
+        } else {
+            sharedStrings = null;
+            sharedStringList = null;
+        }
+    }
+
+    /**
+     * 设置压缩级别，需要在写入数据前调用
+     * @param level 0-9，默认为{@link Deflater#BEST_SPEED}
+     */
+    public void setCompressionLevel(int level) {
+        zip.setLevel(level);
+    }
+
+    /** 当前sheet已经写入的行数 */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 开始写入一张新的sheet，上一张sheet自动结束
+     * @param name sheet名称，不能为空，不超过31个字符，不能包含[]:*?/\，不能与其他sheet重名（不区分大小写）
+     */
+    public void startSheet(@NonNull String name) throws IOException {
+        checkOpen();
+        checkSheetName(name);
+        endSheet();
+
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        write(XML_HEADER);
+        write("<worksheet xmlns=\"" + NS_MAIN + "\"><sheetData>");
+        sheetOpen = true;
+        rowCount = 0;
+    }
+
+    /** 开始新的一行，上一行自动结束；还没有开始任何sheet时自动开始一张名为Sheet1的sheet */
+    public void startRow() throws IOException {
+        checkOpen();
+        if (!sheetOpen) {
+            startSheet("Sheet" + (sheetNames.size() + 1));
+        }
+        endRow();
+        if (rowCount >= MAX_ROWS) {
+            throw new IllegalStateException("超出一张sheet的最大行数：" + MAX_ROWS);
+        }
+
+        rowCount++;
+        rowNumberLength = formatPositive(rowCount, rowNumber);
+        write("<row r=\"");
+        write(rowNumber, 0, rowNumberLength);
+        write("\">");
+        rowOpen = true;
+        column = 0;
+    }
+
+    /** 结束当前行 */
+    public void endRow() throws IOException {
+        if (rowOpen) {
+            write("</row>");
+            rowOpen = false;
+        }
+    }
+
+    /** 写入一整行，见{@link #writeValue(Object)} */
+    public void writeRow(@NonNull Object... values) throws IOException {
+        startRow();
+        for (Object value : values) {
+            writeValue(value);
+        }
+        endRow();
+    }
+
+    /** 写入一整行，见{@link #writeValue(Object)} */
+    public void writeRow(@NonNull List<?> values) throws IOException {
+        startRow();
+        for (int i = 0, n = values.size(); i < n; i++) {
+            writeValue(values.get(i));
+        }
+        endRow();
+    }
+
+    /**
+     * 按类型写入当前行的下一个单元格：
+     * null为空单元格，{@link Number}为数值，{@link Boolean}为布尔值，{@link Date}、{@link Calendar}为日期，其他对象为字符串
+     */
+    public void writeValue(@Nullable Object value) throws IOException {
+        if (value == null) {
+            writeBlank();
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            writeBoolean((Boolean) value);
+        } else if (value instanceof Date) {
+            writeDate((Date) value);
+        } else if (value instanceof Calendar) {
+            writeDate(((Calendar) value).getTime());
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    /** 跳过当前行的下一个单元格，不写入任何内容 */
+    public void writeBlank() {
+        checkRow();
+        nextColumn();
+    }
+
+    /** 写入字符串单元格，null时为空单元格 */
+    public void writeString(@Nullable String value) throws IOException {
+        if (value == null) {
+            writeBlank();
+            return;
+        }
+        checkRow();
+        if (stringMode == StringMode.SHARED) {
+            Integer index = sharedStrings.get(value);
+            if (index == null) {
+                index = sharedStringList.size();
+                sharedStrings.put(value, index);
+                sharedStringList.add(value);
+            }
+            sharedStringRefs++;
+            startCell(STYLE_GENERAL, "s");
+            write("<v>");
+            writeLong(index);
+            write("</v></c>");
+            return;
+        }
+
+        startCell(STYLE_GENERAL, "inlineStr");
+        write("<is>");
+        writeText(value);
+        write("</is></c>");
+    }
+
+    /** 写入数值单元格 */
+    public void writeNumber(long value) throws IOException {
+        checkRow();
+        startCell(STYLE_GENERAL, null);
+        write("<v>");
+        writeLong(value);
+        write("</v></c>");
+    }
+
+    /** 写入数值单元格，NaN和无穷大写为错误#NUM! */
+    public void writeNumber(double value) throws IOException {
+        checkRow();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            startCell(STYLE_GENERAL, "e");
+            write("<v>#NUM!</v></c>");
+            return;
+        }
+        startCell(STYLE_GENERAL, null);
+        write("<v>");
+        writeDouble(value);
+        write("</v></c>");
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        checkRow();
+        startCell(STYLE_GENERAL, "b");
+        write(value ? "<v>1</v></c>" : "<v>0</v></c>");
+    }
+
+    /**
+     * 写入日期单元格，没有时间部分时显示为yyyy-mm-dd，否则显示为yyyy-mm-dd hh:mm:ss，null时为空单元格
+     * @throws IllegalArgumentException 日期早于1900年，excel无法表示
+     */
+    public void writeDate(@Nullable Date value) throws IOException {
+        if (value == null) {
+            writeBlank();
+            return;
+        }
+        double serial = DateUtil.getExcelDate(value);
+        if (serial < 0) {
+            throw new IllegalArgumentException("日期超出excel支持的范围：" + value);
+        }
+        checkRow();
+        startCell(serial == Math.floor(serial) ? STYLE_DATE : STYLE_DATE_TIME, null);
+        write("<v>");
+        writeDouble(serial);
+        write("</v></c>");
+    }
+
+    /** 结束当前sheet */
+    private void endSheet() throws IOException {
+        if (!sheetOpen) {
+            return;
+        }
+        endRow();
+        write("</sheetData></worksheet>");
+        flush();
+        zip.closeEntry();
+        sheetOpen = false;
+    }
+
+    /**
+     * 结束最后一张sheet，写入工作簿、样式、共享字符串表等其余部分，并关闭输出流。
+     * 没有写入任何sheet时生成一张空的sheet
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (sheetNames.isEmpty()) {
+                startSheet("Sheet1");
+            }
+            endSheet();
+            writeSharedStrings();
+            writeStyles();
+            writeWorkbook();
+            writeWorkbookRels();
+            writeRootRels();
+            writeContentTypes();
+            zip.finish();
+        } finally {
+            closed = true;
+            zip.close();
+        }
+    }
+
+    private void writeSharedStrings() throws IOException {
+        if (sharedStringList == null) {
+            return;
+        }
+        zip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+        write(XML_HEADER);
+        write("<sst xmlns=\"" + NS_MAIN + "\" count=\"");
+        writeLong(sharedStringRefs);
+        write("\" uniqueCount=\"");
+        writeLong(sharedStringList.size());
+        write("\">");
+        for (int i = 0, n = sharedStringList.size(); i < n; i++) {
+            write("<si>");
+            writeText(sharedStringList.get(i));
+            write("</si>");
+        }
+        write("</sst>");
+        flush();
+        zip.closeEntry();
+    }
+
+    /** 最小的样式表：常规、日期、日期时间三种单元格样式 */
+    private void writeStyles() throws IOException {
+        zip.putNextEntry(new ZipEntry("xl/styles.xml"));
+        write(XML_HEADER);
+        write("<styleSheet xmlns=\"" + NS_MAIN + "\">"
+                + "<numFmts count=\"2\">"
+                + "<numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd\"/>"
+                + "<numFmt numFmtId=\"165\" formatCode=\"yyyy-mm-dd hh:mm:ss\"/>"
+                + "</numFmts>"
+                + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/><family val=\"2\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"3\">"
+                + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                + "<xf numFmtId=\"165\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+                + "</cellXfs>"
+                + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+                + "</styleSheet>");
+        flush();
+        zip.closeEntry();
+    }
+
+    private void writeWorkbook() throws IOException {
+        zip.putNextEntry(new ZipEntry("xl/workbook.xml"));
+        write(XML_HEADER);
+        write("<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_RELATIONSHIPS + "\"><sheets>");
+        for (int i = 0; i < sheetNames.size(); i++) {
+            write("<sheet name=\"");
+            writeEscaped(sheetNames.get(i));
+            write("\" sheetId=\"" + (i + 1) + "\" r:id=\"rId" + (i + 1) + "\"/>");
+        }
+        write("</sheets></workbook>");
+        flush();
+        zip.closeEntry();
+    }
+
+    private void writeWorkbookRels() throws IOException {
+        zip.putNextEntry(new ZipEntry("xl/_rels/workbook.xml.rels"));
+        write(XML_HEADER);
+        write("<Relationships xmlns=\"" + NS_PACKAGE_RELATIONSHIPS + "\">");
+        int sheetCount = sheetNames.size();
+        for (int i = 1; i <= sheetCount; i++) {
+            write("<Relationship Id=\"rId" + i + "\" Type=\"" + NS_RELATIONSHIPS
+                    + "/worksheet\" Target=\"worksheets/sheet" + i + ".xml\"/>");
+        }
+        write("<Relationship Id=\"rId" + (sheetCount + 1) + "\" Type=\"" + NS_RELATIONSHIPS
+                + "/styles\" Target=\"styles.xml\"/>");
+        if (sharedStringList != null) {
+            write("<Relationship Id=\"rId" + (sheetCount + 2) + "\" Type=\"" + NS_RELATIONSHIPS
+                    + "/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        write("</Relationships>");
+        flush();
+        zip.closeEntry();
+    }
+
+    private void writeRootRels() throws IOException {
+        zip.putNextEntry(new ZipEntry("_rels/.rels"));
+        write(XML_HEADER);
+        write("<Relationships xmlns=\"" + NS_PACKAGE_RELATIONSHIPS + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + NS_RELATIONSHIPS
+                + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        flush();
+        zip.closeEntry();
+    }
+
+    private void writeContentTypes() throws IOException {
+        zip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+        write(XML_HEADER);
+        write("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"" + CONTENT_TYPE_PREFIX + "sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"" + CONTENT_TYPE_PREFIX + "styles+xml\"/>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            write("<Override PartName=\"/xl/worksheets/sheet" + i + ".xml\" ContentType=\""
+                    + CONTENT_TYPE_PREFIX + "worksheet+xml\"/>");
+        }
+        if (sharedStringList != null) {
+            write("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\""
+                    + CONTENT_TYPE_PREFIX + "sharedStrings+xml\"/>");
+        }
+        write("</Types>");
+        flush();
+        zip.closeEntry();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("已经关闭");
+        }
+    }
+
+    private void checkRow() {
+        if (!rowOpen) {
+            throw new IllegalStateException("需要先调用startRow()");
+        }
+        if (column >= MAX_COLUMNS) {
+            throw new IllegalStateException("超出一行的最大列数：" + MAX_COLUMNS);
+        }
+    }
+
+    private void checkSheetName(@NonNull String name) {
+        if (name.isEmpty() || name.length() > MAX_SHEET_NAME_LENGTH) {
+            throw new IllegalArgumentException("sheet名称长度必须在1-" + MAX_SHEET_NAME_LENGTH + "之间：" + name);
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if ("[]:*?/\\".indexOf(name.charAt(i)) >= 0) {
+                throw new IllegalArgumentException("sheet名称不能包含[]:*?/\\：" + name);
+            }
+        }
+        for (String n : sheetNames) {
+            if (n.equalsIgnoreCase(name)) {
+                throw new IllegalArgumentException("sheet名称重复：" + name);
+            }
+        }
+    }
+
+    /** 写入单元格的开始部分和引用，如[c r="B3" s="1" t="s"&gt;]，列序号加1 */
+    private void startCell(int style, @Nullable String type) throws IOException {
+        write("<c r=\"");
+        byte[] name = columnName(column);
+        write(name, 0, name.length);
+        write(rowNumber, 0, rowNumberLength);
+        if (style != STYLE_GENERAL) {
+            write("\" s=\"");
+            writeLong(style);
+        }
+        if (type != null) {
+            write("\" t=\"");
+            write(type);
+        }
+        write("\">");
+        nextColumn();
+    }
+
+    private void nextColumn() {
+        column++;
+    }
+
+    /** 列名，如0为A、27为AB */
+    @NonNull
+    private byte[] columnName(int index) {
+        if (index >= columnNames.length) {
+            columnNames = Arrays.copyOf(columnNames, Math.min(MAX_COLUMNS, Math.max(index + 1, columnNames.length * 2)));
+        }
+        byte[] name = columnNames[index];
+        if (name == null) {
+            byte[] tmp = new byte[3];
+            int pos = tmp.length;
+            int n = index + 1;
+            while (n > 0) {
+                n--;
+                tmp[--pos] = (byte) ('A' + n % 26);
+                n /= 26;
+            }
+            name = Arrays.copyOfRange(tmp, pos, tmp.length);
+            columnNames[index] = name;
+        }
+        return name;
+    }
+
+    /** 把正整数的十进制ascii字节写入out的开头，返回长度 */
+    private static int formatPositive(long value, @NonNull byte[] out) {
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return digits;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buf[len++] = '-';
+            value = -value;
+        }
+        int n = formatPositive(value, digits);
+        System.arraycopy(digits, 0, buf, len, n);
+        len += n;
+    }
+
+    /** 整数值直接按整数写入，其他值使用最短的能精确还原的十进制表示 */
+    private void writeDouble(double value) throws IOException {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            //避免写出-0
+            writeLong(value == 0 ? 0 : (long) value);
+            return;
+        }
+        write(Double.toString(value));
+    }
+
+    /** 写入[t]节点，首尾有空白时保留空白 */
+    private void writeText(@NonNull String value) throws IOException {
+        int n = value.length();
+        if (n > 0 && (value.charAt(0) <= ' ' || value.charAt(n - 1) <= ' ')) {
+            write("<t xml:space=\"preserve\">");
+        } else {
+            write("<t>");
+        }
+        writeEscaped(value);
+        write("</t>");
+    }
+
+    /**
+     * 按utf-8编码写入转义后的文本：[&amp;]、[&lt;]、[&gt;]、["]转为实体引用，[\r]写为[&amp;#13;]以免被解析器转换为换行，
+     * xml 1.0不允许的控制字符被丢弃，不成对的代理字符写为[?]
+     */
+    private void writeEscaped(@NonNull String value) throws IOException {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            ensure(6);
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '&':
+                        write("&amp;");
+                        break;
+                    case '<':
+                        write("&lt;");
+                        break;
+                    case '>':
+                        write("&gt;");
+                        break;
+                    case '"':
+                        write("&quot;");
+                        break;
+                    case '\r':
+                        write("&#13;");
+                        break;
+                    case '\t':
+                    case '\n':
+                        buf[len++] = (byte) c;
+                        break;
+                    default:
+                        if (c >= 0x20) {
+                            buf[len++] = (byte) c;
+                        }
+                        break;
+                }
+            } else if (c < 0x800) {
+                buf[len++] = (byte) (0xc0 | (c >> 6));
+                buf[len++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buf[len++] = (byte) (0xf0 | (cp >> 18));
+                buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[len++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buf[len++] = '?';
+            } else if (c < 0xfffe) {
+                buf[len++] = (byte) (0xe0 | (c >> 12));
+                buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[len++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    /** 写入ascii字符串，不做转义 */
+    private void write(@NonNull String ascii) throws IOException {
+        int n = ascii.length();
+        if (n > buf.length - len) {
+            flush();
+            if (n > buf.length) {
+                byte[] bytes = new byte[n];
+                for (int i = 0; i < n; i++) {
+                    bytes[i] = (byte) ascii.charAt(i);
+                }
+                zip.write(bytes, 0, n);
+                return;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            buf[len++] = (byte) ascii.charAt(i);
+        }
+    }
+
+    private void write(@NonNull byte[] bytes, int offset, int length) throws IOException {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, len, length);
+        len += length;
+    }
+
+    /** 保证缓冲区中至少还有size个字节的空间，size不超过缓冲区大小 */
+    private void ensure(int size) throws IOException {
+        if (size > buf.length - len) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (len > 0) {
+            zip.write(buf, 0, len);
+            len = 0;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created in 2020/5/22 19:40
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description {@link CellRow}把数值、日期转换为字符串的结果必须与{@link DataFormatter#formatRawCellContents}一致。
+ *
+ * <pre>
+ * 日期使用{@link CellFormat}中缓存的日期格式化对象，覆盖所有内置日期格式、常见的自定义格式、
+ * 分段和带条件的格式，以及1904日期系统。同一个{@link CellFormat}交替用于多个值，检查缓存的对象没有残留上一个值。
+ * </pre>
+ */
+public class CellFormatTest {
+
+    private static final String[] CUSTOM_FORMATS = {
+            "yyyy-mm-dd", "yyyy/m/d h:mm:ss", "yyyy\"年\"m\"月\"d\"日\"", "mm:ss.0", "[h]:mm:ss", "h:mm AM/PM",
+            "dddd, mmmm dd, yyyy", "[$-409]d-mmm-yy;@", "yyyy-mm-dd;@", "[Red]yyyy-mm-dd", "m/d/yyyy\\ h:mm",
+            "[>=1]yyyy-mm-dd;hh:mm", "yyyy-mm-dd;yyyy-mm-dd;yyyy-mm-dd",
+            "0.00", "#,##0", "General", "0.00%",
+    };
+
+    /**
+     * 有效的日期序列号。无效的日期（如负数）类型为数值，仍由{@link DataFormatter}转换，
+     * 其结果取决于{@link DataFormatter}之前是否缓存过该格式，这里不做比较
+     */
+    private static final double[] VALUES = {0.25, 1, 59.5, 60, 43970.5, 43970.123456, 2958465.99, 12.5};
+
+    @Test
+    public void builtinFormatsMatchDataFormatter() {
+        for (int i = 0; i < BuiltinFormats.getAll().length; i++) {
+            String formatString = BuiltinFormats.getBuiltinFormat(i);
+            if (formatString != null) {
+                assertSameAsDataFormatter(new CellFormat(i, formatString));
+            }
+        }
+    }
+
+    @Test
+    public void customFormatsMatchDataFormatter() {
+        for (int i = 0; i < CUSTOM_FORMATS.length; i++) {
+            assertSameAsDataFormatter(new CellFormat(164 + i, CUSTOM_FORMATS[i]));
+        }
+    }
+
+    @Test
+    public void dateFlagIsCachedOnCreation() {
+        assertTrue(new CellFormat(14, BuiltinFormats.getBuiltinFormat(14)).isDateFormat());
+        assertTrue(new CellFormat(164, "yyyy-mm-dd").isDateFormat());
+        assertFalse(new CellFormat(2, "0.00").isDateFormat());
+        assertFalse(new CellFormat(-1, null).isDateFormat());
+    }
+
+    private static void assertSameAsDataFormatter(CellFormat format) {
+        DataFormatter expectedFormatter = new DataFormatter();
+        DataFormatter formatter = new DataFormatter();
+        CellRow row = new CellRow();
+        for (boolean date1904 : new boolean[]{false, true}) {
+            //两轮：第二轮使用已经缓存的日期格式化对象
+            for (int round = 0; round < 2; round++) {
+                for (double value : VALUES) {
+                    row.reset(null, 0, date1904, formatter);
+                    row.addNumber(0, value, format);
+                    String expected = expectedFormatter.formatRawCellContents(value, format.getIndex(),
+                            format.getFormatString(), date1904);
+                    assertEquals(format + ", value=" + value + ", date1904=" + date1904, expected, row.getString(0));
+                    assertEquals(format.isDateFormat() && DateUtil.isValidExcelDate(value),
+                            row.getType(0) == CellRow.CellType.DATE);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Created in 2020/5/22 20:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description {@link CellRow}写入的列序号重复或者不按顺序时（个别xls文件中的单元格记录），
+ * 重复的列覆盖原来的单元格，乱序的列插入到对应的位置，单元格始终按列序号排列。
+ */
+public class CellRowTest {
+
+    @Test
+    public void repeatedColumnOverwrites() {
+        CellRow row = new CellRow();
+        row.reset(null, 0, false, null);
+        row.addNumber(0, 1, new CellFormat(2, "0.00"));
+        row.addString(1, "a");
+        row.addString(1, "b");
+        row.addBoolean(0, true);
+
+        assertEquals(2, row.getCellCount());
+        assertEquals(CellRow.CellType.BOOLEAN, row.getType(0));
+        assertNull("覆盖后不应保留原来的数字格式", row.getFormat(0));
+        assertEquals("TRUE", row.getString(0));
+        assertEquals("b", row.getString(1));
+    }
+
+    @Test
+    public void outOfOrderColumnIsInserted() {
+        CellRow row = new CellRow();
+        row.reset(null, 0, false, null);
+        //超过初始容量，插入时同时扩容
+        for (int column = 30; column >= 0; column -= 2) {
+            row.addString(column, "s" + column);
+        }
+        row.addNumber(5, 5, null);
+        row.addError(31, "#N/A");
+
+        assertEquals(18, row.getCellCount());
+        for (int i = 1; i < row.getCellCount(); i++) {
+            assertEquals(true, row.getColumn(i - 1) < row.getColumn(i));
+        }
+        for (int column = 0; column <= 30; column += 2) {
+            assertEquals("s" + column, row.getString(column));
+        }
+        assertEquals(5, row.getDouble(5), 0);
+        assertEquals("5", row.getString(5));
+        assertEquals("#N/A", row.getString(31));
+
+        BitSet retained = new BitSet();
+        retained.set(4, 7);
+        row.retainColumns(retained);
+        assertEquals(3, row.getCellCount());
+        assertEquals("s4", row.getString(4));
+        assertEquals("5", row.getString(5));
+        assertEquals("s6", row.getString(6));
+    }
+}
@@ -0,0 +1,110 @@
+package com.qxtx.idea.ideaexcel.poi.bean;
+
+import android.support.annotation.NonNull;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Created in 2020/5/22 20:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description {@link RowBatch}保存单元格的类型和数值，读取的字符串与{@link CellRow}转换的结果一致。
+ *
+ * <pre>
+ * 行对象在加入后被复用写入下一行，批中保存的数据不受影响；清空后复用的批不残留上一批的字符串。
+ * </pre>
+ */
+public class RowBatchTest {
+
+    private static final CellFormat DATE = new CellFormat(14, "m/d/yy");
+
+    private static final CellFormat AMOUNT = new CellFormat(4, "#,##0.00");
+
+    private final DataFormatter formatter = new DataFormatter();
+
+    @Test
+    public void keepsTypesAndNumbers() {
+        CellRow row = new CellRow();
+        RowBatch batch = new RowBatch(1);
+        for (int i = 0; i < 3; i++) {
+            fill(row, i);
+            batch.addRow(row);
+        }
+
+        assertEquals(3, batch.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i * 2, batch.getRowIndex(i));
+            assertEquals(6, batch.getCellCount(i));
+            assertEquals(CellRow.CellType.STRING, batch.getType(i, 0));
+            assertEquals(CellRow.CellType.NUMBER, batch.getType(i, 1));
+            assertEquals(1234.5 + i, batch.getDouble(i, 1), 0);
+            assertEquals(AMOUNT, batch.getFormat(i, 1));
+            assertEquals(CellRow.CellType.DATE, batch.getType(i, 2));
+            assertEquals(43970 + i, batch.getDouble(i, 2), 0);
+            assertEquals(CellRow.CellType.BOOLEAN, batch.getType(i, 3));
+            assertEquals(i % 2, batch.getDouble(i, 3), 0);
+            assertEquals(CellRow.CellType.ERROR, batch.getType(i, 4));
+            assertNull(batch.getFormat(i, 4));
+            assertEquals(5, batch.getColumn(i, 4));
+            assertEquals(CellRow.CellType.NUMBER, batch.getType(i, 5));
+            assertEquals(i, batch.getDouble(i, 5), 0);
+        }
+    }
+
+    @Test
+    public void stringsMatchCellRow() {
+        CellRow row = new CellRow();
+        RowBatch batch = new RowBatch();
+        for (int i = 0; i < 3; i++) {
+            fill(row, i);
+            batch.addRow(row);
+        }
+        for (int i = 0; i < 3; i++) {
+            fill(row, i);
+            String[] expected = new String[row.getCellCount()];
+            for (int cell = 0; cell < expected.length; cell++) {
+                expected[cell] = row.getStringAt(cell);
+                assertEquals(expected[cell], batch.getString(i, cell));
+                assertEquals(expected[cell], batch.getValue(i, row.getColumn(cell)));
+            }
+            assertEquals(Arrays.asList(expected), batch.getRow(i));
+        }
+        assertEquals("1,234.50", batch.getString(0, 1));
+        assertEquals("TRUE", batch.getString(1, 3));
+        assertNull(batch.getValue(0, 4));
+    }
+
+    @Test
+    public void clearedBatchIsReused() {
+        CellRow row = new CellRow();
+        RowBatch batch = new RowBatch();
+        fill(row, 0);
+        batch.addRow(row);
+        batch.getRow(0);
+        batch.clear();
+
+        row.reset(null, 9, false, formatter);
+        row.addNumber(1, 7, AMOUNT);
+        batch.addRow(row);
+        assertEquals(1, batch.size());
+        assertEquals(CellRow.CellType.NUMBER, batch.getType(0, 0));
+        assertEquals("7.00", batch.getString(0, 0));
+    }
+
+    private void fill(@NonNull CellRow row, int i) {
+        row.reset(null, i * 2, false, formatter);
+        row.addString(0, "名称" + i);
+        row.addNumber(1, 1234.5 + i, AMOUNT);
+        row.addNumber(2, 43970 + i, DATE);
+        row.addBoolean(3, i % 2 != 0);
+        row.addError(5, "#DIV/0!");
+        row.addNumber(6, i, null);
+    }
+}
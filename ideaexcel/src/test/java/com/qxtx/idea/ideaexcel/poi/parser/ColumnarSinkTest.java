@@ -0,0 +1,183 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.ColumnarTable;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Created in 2020/5/22 17:20
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description {@link ColumnarSink}需要表头时与行过滤条件一起使用：表头不受过滤条件影响，
+ * 列名来自表头，表中只包含符合条件的数据行。
+ *
+ * <pre>
+ * 每个文件的第一行是表头[编号,金额,备注]，第i行数据的金额为i*10，过滤条件选择金额在[100, 200]之间的行。
+ * csv分别按单线程和多线程读取，多线程读取的文件超过4MB。
+ * 多张sheet的文件按sheet的开始、结束回调分别生成表，没有任何行的sheet不生成表。
+ * </pre>
+ */
+public class ColumnarSinkTest {
+
+    private static final int ROWS = 200;
+
+    /** 多线程读取的csv的行数，每行带一个较长的备注，使文件超过多线程读取的最小值 */
+    private static final int PARALLEL_ROWS = 40000;
+
+    private static final double MIN = 100;
+
+    private static final double MAX = 200;
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void csvHeaderIsNotFiltered() throws Exception {
+        assertFilteredTable(read(createCsv("small.csv", ROWS), ReadOptions.DEFAULT));
+    }
+
+    @Test
+    public void parallelCsvHeaderIsNotFiltered() throws Exception {
+        File file = createCsv("large.csv", PARALLEL_ROWS);
+        ReadOptions options = new ReadOptions.Builder().setCsvParallelism(4).build();
+        assertFilteredTable(read(file, options));
+    }
+
+    @Test
+    public void xlsHeaderIsNotFiltered() throws Exception {
+        assertFilteredTable(read(createWorkbook(new HSSFWorkbook(), "table.xls"), ReadOptions.DEFAULT));
+    }
+
+    @Test
+    public void xlsxHeaderIsNotFiltered() throws Exception {
+        assertFilteredTable(read(createWorkbook(new XSSFWorkbook(), "table.xlsx"), ReadOptions.DEFAULT));
+    }
+
+    @Test
+    public void headerIsNotFilteredWithColumnNames() throws Exception {
+        ReadOptions options = new ReadOptions.Builder().setColumnNames("编号", "金额").build();
+        assertFilteredTable(read(createWorkbook(new XSSFWorkbook(), "names.xlsx"), options));
+    }
+
+    @Test
+    public void tablePerSheet() throws Exception {
+        Workbook workbook = new XSSFWorkbook();
+        workbook.createSheet("empty");
+        File file = createWorkbook(workbook, "sheets.xlsx");
+
+        ColumnarSink sink = new ColumnarSink(true);
+        ExcelReader.getInstance().read(file.getPath(), ReadOptions.DEFAULT, sink);
+        List<ColumnarTable> tables = sink.getTables();
+        assertEquals(1, tables.size());
+        assertNotNull(tables.get(0).getSheet());
+        assertEquals("table", tables.get(0).getSheet().getName());
+        assertEquals(ROWS, tables.get(0).getRowCount());
+
+        workbook = new HSSFWorkbook();
+        fillSheet(workbook.createSheet("first"));
+        workbook.createSheet("empty");
+        fillSheet(workbook.createSheet("second"));
+        file = folder.newFile("sheets.xls");
+        try (OutputStream out = new FileOutputStream(file)) {
+            workbook.write(out);
+        }
+        workbook.close();
+
+        sink = new ColumnarSink(true);
+        ExcelReader.getInstance().read(file.getPath(), ReadOptions.DEFAULT, sink);
+        tables = sink.getTables();
+        assertEquals(2, tables.size());
+        assertEquals("first", tables.get(0).getSheet().getName());
+        assertEquals("second", tables.get(1).getSheet().getName());
+        for (ColumnarTable table : tables) {
+            assertEquals(ROWS, table.getRowCount());
+            assertEquals("金额", table.getColumnName(1));
+        }
+    }
+
+    /** 在配置的基础上加上金额的过滤条件，读取第一张sheet */
+    @NonNull
+    private static ColumnarTable read(@NonNull File file, @NonNull ReadOptions options) {
+        ColumnarSink sink = new ColumnarSink(true);
+        ExcelReader.getInstance().read(file.getPath(),
+                options.newBuilder().setRowFilters(RowFilter.between(1, MIN, MAX)).build(), sink);
+        ColumnarTable table = sink.getTable();
+        assertNotNull("没有读取到表：" + file.getName(), table);
+        return table;
+    }
+
+    private static void assertFilteredTable(@NonNull ColumnarTable table) {
+        assertEquals("编号", table.getColumnName(0));
+        assertEquals("金额", table.getColumnName(1));
+        ColumnarTable.Column amounts = table.getColumn("金额");
+        assertNotNull(amounts);
+
+        int first = (int) (MIN / 10);
+        assertEquals((int) (MAX / 10) - first + 1, table.getRowCount());
+        for (int i = 0; i < table.getRowCount(); i++) {
+            assertEquals(String.valueOf((first + i) * 10), amounts.getString(i));
+            assertEquals(String.valueOf(first + i), table.getColumn("编号").getString(i));
+        }
+    }
+
+    @NonNull
+    private static File createCsv(@NonNull String name, int rows) throws Exception {
+        File file = folder.newFile(name);
+        StringBuilder note = new StringBuilder();
+        while (rows > ROWS && note.length() < 120) {
+            note.append("较长的备注内容");
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            writer.write("编号,金额,备注\r\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(i + "," + i * 10 + ",备注" + i + note + "\r\n");
+            }
+        }
+        return file;
+    }
+
+    @NonNull
+    private static File createWorkbook(@NonNull Workbook workbook, @NonNull String name) throws Exception {
+        fillSheet(workbook.createSheet("table"));
+        File file = folder.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            workbook.write(out);
+        }
+        workbook.close();
+        return file;
+    }
+
+    private static void fillSheet(@NonNull Sheet sheet) {
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("编号");
+        header.createCell(1).setCellValue("金额");
+        header.createCell(2).setCellValue("备注");
+        for (int i = 0; i < ROWS; i++) {
+            Row row = sheet.createRow(i + 1);
+            row.createCell(0).setCellValue(i);
+            row.createCell(1).setCellValue(i * 10);
+            row.createCell(2).setCellValue("备注" + i);
+        }
+    }
+}
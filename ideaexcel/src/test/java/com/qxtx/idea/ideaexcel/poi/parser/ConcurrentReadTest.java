@@ -0,0 +1,243 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.SheetInfo;
+import com.qxtx.idea.ideaexcel.poi.callback.IParallelReadCallback;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created in 2020/5/22 10:00
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 多个线程同时通过{@link ExcelReader#getInstance()}读取不同的csv、xls、xlsx文件，
+ * 每一次读取的结果都必须与单线程读取的结果完全一致。
+ *
+ * <pre>
+ * 测试文件在运行时生成：每种格式各3个文件，行数、sheet数量、单元格内容各不相同，
+ * csv中包含带逗号、双引号、换行的单元格，以及GBK编码的文件，xls、xlsx中包含数值、日期、布尔值和空缺的列。
+ * 读取时交替使用默认配置和选择部分列的配置，两种配置的期望结果分别由单线程读取得到。
+ * </pre>
+ */
+public class ConcurrentReadTest {
+
+    private static final int THREADS = 16;
+
+    private static final int READS_PER_THREAD = 8;
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    /** 读取时使用的配置 */
+    private static final ReadOptions[] OPTIONS = {
+            ReadOptions.DEFAULT,
+            new ReadOptions.Builder().setColumns(0, 2, 3).setFillColumnGaps(true).build()
+    };
+
+    private static final List<File> files = new ArrayList<>();
+
+    /** 单线程读取的结果，key为文件名和配置序号 */
+    private static final Map<String, List<String>> expected = new HashMap<>();
+
+    @BeforeClass
+    public static void createFiles() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            files.add(createCsv("table" + i + ".csv", 3000 + i * 1000, i));
+            files.add(createWorkbook(new HSSFWorkbook(), "table" + i + ".xls", i + 1, 1000 + i * 300));
+            files.add(createWorkbook(new XSSFWorkbook(), "table" + i + ".xlsx", i + 1, 1000 + i * 300));
+        }
+
+        for (File file : files) {
+            for (int i = 0; i < OPTIONS.length; i++) {
+                List<String> rows = read(file, OPTIONS[i]);
+                assertFalse("没有读取到任何行：" + file.getName(), rows.isEmpty());
+                expected.put(key(file, i), rows);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentReadsMatchSingleThreadedRead() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int n = 0; n < READS_PER_THREAD; n++) {
+                            //每个线程按不同的顺序读取，保证同一时刻有不同格式、不同文件的读取在进行
+                            File file = files.get((thread * 7 + n) % files.size());
+                            int option = (thread + n) % OPTIONS.length;
+                            assertEquals("读取结果与单线程不一致：" + file.getName() + "，配置" + option,
+                                    expected.get(key(file, option)), read(file, OPTIONS[option]));
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof AssertionError) {
+                        throw (AssertionError) cause;
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+    }
+
+    /** 读取整个文件，每一行记录为[sheet名称|行序号|行内容] */
+    @NonNull
+    private static List<String> read(@NonNull File file, @NonNull ReadOptions options) {
+        final List<String> rows = Collections.synchronizedList(new ArrayList<String>());
+        ExcelReader.getInstance().read(file.getPath(), options, new IParallelReadCallback() {
+            @Override
+            public void onSheetStart(@NonNull SheetInfo sheet) {
+                rows.add("start|" + sheet.getName());
+            }
+
+            @Override
+            public void onRowRead(@NonNull SheetInfo sheet, int rowIndex, @NonNull List<String> row) {
+                rows.add(sheet.getName() + "|" + rowIndex + "|" + row);
+            }
+
+            @Override
+            public void onSheetEnd(@NonNull SheetInfo sheet) {
+                rows.add("end|" + sheet.getName());
+            }
+        });
+        return rows;
+    }
+
+    @NonNull
+    private static String key(@NonNull File file, int option) {
+        return file.getName() + "#" + option;
+    }
+
+    /**
+     * 生成csv文件，第一个文件使用GBK编码，其他文件使用带BOM的UTF-8编码
+     * @param seed 用于区分不同文件的内容
+     */
+    @NonNull
+    private static File createCsv(@NonNull String name, int rows, int seed) throws Exception {
+        File file = folder.newFile(name);
+        Charset charset = Charset.forName(seed == 0 ? "GBK" : "UTF-8");
+        try (OutputStream out = new FileOutputStream(file);
+             Writer writer = new OutputStreamWriter(out, charset)) {
+            if (seed != 0) {
+                writer.write('\ufeff');
+            }
+            writer.write("编号,名称,金额,备注\r\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(i + seed * 100000 + ",名称" + (i % 37) + "," + (i * 1.25 + seed));
+                switch (i % 5) {
+                    case 0:
+                        writer.write(",\"带,逗号\"\r\n");
+                        break;
+                    case 1:
+                        writer.write(",\"带\"\"双引号\"\"\"\n");
+                        break;
+                    case 2:
+                        writer.write(",\"多行\r\n单元格" + i + "\"\r\n");
+                        break;
+                    case 3:
+                        writer.write(",\r\n");
+                        break;
+                    default:
+                        writer.write("\n");
+                        break;
+                }
+            }
+        }
+        return file;
+    }
+
+    /** 生成xls或者xlsx文件，每张sheet的内容都不相同 */
+    @NonNull
+    private static File createWorkbook(@NonNull Workbook workbook, @NonNull String name, int sheets, int rows)
+            throws Exception {
+        short dateFormat = workbook.createDataFormat().getFormat("yyyy-mm-dd");
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(dateFormat);
+
+        for (int s = 0; s < sheets; s++) {
+            Sheet sheet = workbook.createSheet("sheet" + s);
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("编号");
+            header.createCell(1).setCellValue("名称");
+            header.createCell(2).setCellValue("金额");
+            header.createCell(3).setCellValue("日期");
+            header.createCell(4).setCellValue("有效");
+            for (int i = 1; i <= rows; i++) {
+                //每隔几行留下一个空行
+                if (i % 11 == 0) {
+                    continue;
+                }
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i + s * 10000);
+                //名称列有空缺
+                if (i % 3 != 0) {
+                    row.createCell(1).setCellValue(name + "-" + s + "-" + (i % 53));
+                }
+                row.createCell(2).setCellValue(i * 0.5 + s);
+                Cell date = row.createCell(3);
+                date.setCellValue(40000 + i);
+                date.setCellStyle(dateStyle);
+                row.createCell(4).setCellValue(i % 2 == 0);
+            }
+        }
+        File file = folder.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            workbook.write(out);
+        }
+        workbook.close();
+        return file;
+    }
+}
@@ -0,0 +1,192 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created in 2020/5/22 18:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 多线程读取csv的结果必须与单线程读取完全一致，并比较两者的吞吐量。
+ *
+ * <pre>
+ * 1、生成的文件约{@value #ROWS}行，包含带[,]、["]和换行的单元格，切分位置可能落在双引号内；
+ * 2、按顺序交付时行的顺序、行序号与单线程一致；不按顺序交付时排序后一致；
+ * 3、选择列、过滤条件、起始行与行数上限同样与单线程一致，不按顺序交付且有行数上限时交付的是前若干行；
+ * 4、吞吐量先预热，再各读取{@value #ROUNDS}次，取最快的一次，结果输出到标准输出。
+ *   耗时受运行环境（CPU核数）影响较大，这里只输出不做断言。
+ * </pre>
+ */
+public class ParallelCsvReadTest {
+
+    private static final int ROWS = 400000;
+
+    private static final int PARALLELISM = 4;
+
+    private static final int WARMUP_ROUNDS = 1;
+
+    private static final int ROUNDS = 3;
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    private static File file;
+
+    @BeforeClass
+    public static void createFile() throws Exception {
+        file = folder.newFile("parallel.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            writer.write("编号,名称,金额,备注\r\n");
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < ROWS; i++) {
+                line.setLength(0);
+                line.append(i).append(",名称").append(i % 97).append(',').append(i % 1000);
+                switch (i % 6) {
+                    case 0:
+                        line.append(",\"带,逗号\"\r\n");
+                        break;
+                    case 1:
+                        line.append(",\"带\"\"双引号\"\"\"\n");
+                        break;
+                    case 2:
+                        line.append(",\"多行\r\n单元格\n").append(i).append("\"\r\n");
+                        break;
+                    case 3:
+                        line.append(",\r\n");
+                        break;
+                    default:
+                        line.append(",普通备注").append(i % 13).append('\n');
+                        break;
+                }
+                writer.write(line.toString());
+            }
+        }
+        assertTrue("文件应该能切分成多块", file.length() > 2 * 4 * 1024 * 1024);
+    }
+
+    @Test
+    public void orderedReadMatchesSingleThread() {
+        ReadOptions options = ReadOptions.DEFAULT;
+        assertEquals(read(options), read(parallel(options, true)));
+    }
+
+    @Test
+    public void unorderedReadMatchesSingleThreadWhenSorted() {
+        List<String> expected = read(ReadOptions.DEFAULT);
+        List<String> actual = read(parallel(ReadOptions.DEFAULT, false));
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void selectionMatchesSingleThread() {
+        ReadOptions options = new ReadOptions.Builder()
+                .setColumnNames("编号", "备注")
+                .setRowFilters(RowFilter.between(2, 100, 199))
+                .build();
+        List<String> expected = read(options);
+        assertEquals(expected, read(parallel(options, true)));
+        List<String> unordered = read(parallel(options, false));
+        Collections.sort(expected);
+        Collections.sort(unordered);
+        assertEquals(expected, unordered);
+    }
+
+    @Test
+    public void rowWindowMatchesSingleThread() {
+        ReadOptions options = new ReadOptions.Builder().setStartRow(ROWS / 2).setMaxRows(1000).build();
+        List<String> expected = read(options);
+        assertEquals(1000, expected.size());
+        assertEquals(expected, read(parallel(options, true)));
+        assertEquals(expected, read(parallel(options, false)));
+    }
+
+    @Test
+    public void throughputAgainstSingleThread() {
+        ReadOptions parallel = parallel(ReadOptions.DEFAULT, true);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            count(ReadOptions.DEFAULT);
+            count(parallel);
+        }
+        long serialBest = Long.MAX_VALUE;
+        long parallelBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            count(ReadOptions.DEFAULT);
+            serialBest = Math.min(serialBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            count(parallel);
+            parallelBest = Math.min(parallelBest, System.nanoTime() - start);
+        }
+
+        double mb = file.length() / (1024.0 * 1024.0);
+        System.out.println(String.format(Locale.US,
+                "csv %.1fMB, %d cpus: single thread %.1fMB/s, %d threads %.1fMB/s (%.2fx)",
+                mb, Runtime.getRuntime().availableProcessors(), mb / (serialBest / 1e9), PARALLELISM,
+                mb / (parallelBest / 1e9), (double) serialBest / parallelBest));
+    }
+
+    @NonNull
+    private static ReadOptions parallel(@NonNull ReadOptions options, boolean ordered) {
+        return options.newBuilder().setCsvParallelism(PARALLELISM).setCsvOrdered(ordered).build();
+    }
+
+    /** 读取整个文件，每一行记录为行序号和所有单元格 */
+    @NonNull
+    private static List<String> read(@NonNull ReadOptions options) {
+        final List<String> rows = new ArrayList<>();
+        ExcelReader.getInstance().read(file.getPath(), options, new ITypedReadCallback() {
+            @Override
+            public void onRowRead(@NonNull CellRow row) {
+                rows.add(row.toString());
+            }
+
+            @Override
+            public void onFinished() {
+            }
+        });
+        return rows;
+    }
+
+    /** 读取整个文件，只统计单元格的字符数，不保留行数据 */
+    private static long count(@NonNull ReadOptions options) {
+        final long[] cells = {0};
+        ExcelReader.getInstance().read(file.getPath(), options, new ITypedReadCallback() {
+            @Override
+            public void onRowRead(@NonNull CellRow row) {
+                CellRow.Cursor cursor = row.cursor();
+                while (cursor.next()) {
+                    cells[0] += cursor.getString().length();
+                }
+            }
+
+            @Override
+            public void onFinished() {
+            }
+        });
+        return cells[0];
+    }
+}
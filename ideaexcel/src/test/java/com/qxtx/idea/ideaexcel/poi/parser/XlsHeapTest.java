@@ -0,0 +1,133 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created in 2020/5/22 14:30
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 在很小的堆内存中读取比堆内存更大的xls文件，验证xls是从磁盘按需读取的，内存占用与文件大小无关。
+ *
+ * <pre>
+ * 测试进程的堆大小无法在运行时修改，因此生成文件后，在一个以{@value #HEAP_MB}MB堆内存启动的子进程中读取，
+ * 子进程输出单元格数量和所有数值的和，与生成时的内容比较。
+ * 文件约19MB，把整个OLE2容器读入内存的方式（POIFSFileSystem(InputStream)）在这个堆大小下会内存溢出。
+ * </pre>
+ */
+public class XlsHeapTest {
+
+    /** 子进程的堆内存大小，单位MB */
+    private static final int HEAP_MB = 16;
+
+    /** xls中一张sheet的最大行数 */
+    private static final int ROWS = 65535;
+
+    private static final int COLUMNS = 16;
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsXlsLargerThanHeap() throws Exception {
+        File file = createXls();
+        assertTrue("测试文件应该比子进程的堆内存大", file.length() > HEAP_MB * 1024L * 1024L);
+
+        double expectedSum = 0;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                expectedSum += value(r, c);
+            }
+        }
+
+        String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(javaBin, "-Xmx" + HEAP_MB + "m",
+                "-cp", System.getProperty("java.class.path"),
+                ReadMain.class.getName(), file.getPath())
+                .redirectErrorStream(true)
+                .start();
+
+        //只保留最后一行输出，即读取结果
+        String result = null;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append('\n');
+                result = line;
+            }
+        }
+        assertTrue("子进程没有在规定时间内结束", process.waitFor(5, TimeUnit.MINUTES));
+        assertEquals("子进程读取失败：\n" + output, 0, process.exitValue());
+        assertEquals("cells=" + (ROWS * COLUMNS) + ",sum=" + expectedSum, result);
+    }
+
+    /** 生成一张sheet的xls，全部是数值单元格 */
+    @NonNull
+    private static File createXls() throws Exception {
+        File file = folder.newFile("heap.xls");
+        try (HSSFWorkbook workbook = new HSSFWorkbook();
+             OutputStream out = new FileOutputStream(file)) {
+            HSSFSheet sheet = workbook.createSheet("heap");
+            for (int r = 0; r < ROWS; r++) {
+                HSSFRow row = sheet.createRow(r);
+                for (int c = 0; c < COLUMNS; c++) {
+                    row.createCell(c).setCellValue(value(r, c));
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    private static double value(int row, int column) {
+        return row * 0.5 + column;
+    }
+
+    /** 在子进程中读取xls，最后一行输出单元格数量和所有数值的和，读取失败时以非0状态退出 */
+    public static final class ReadMain {
+
+        public static void main(String[] args) {
+            final long[] cells = {0};
+            final double[] sum = {0};
+            ExcelReader.getInstance().read(args[0], ReadOptions.DEFAULT, new ITypedReadCallback() {
+                @Override
+                public void onRowRead(@NonNull CellRow row) {
+                    CellRow.Cursor cursor = row.cursor();
+                    while (cursor.next()) {
+                        cells[0]++;
+                        sum[0] += cursor.getDouble();
+                    }
+                }
+
+                @Override
+                public void onFinished() {
+                }
+            });
+            if (cells[0] == 0) {
+                System.exit(1);
+            }
+            System.out.println("cells=" + cells[0] + ",sum=" + sum[0]);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.qxtx.idea.ideaexcel.poi.parser;
+
+import android.support.annotation.NonNull;
+
+import com.qxtx.idea.ideaexcel.poi.bean.CellRow;
+import com.qxtx.idea.ideaexcel.poi.callback.IReadCallback;
+import com.qxtx.idea.ideaexcel.poi.callback.ITypedReadCallback;
+
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created in 2020/5/22 19:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 读取全是数值的xls，比较按字符串交付（{@link IReadCallback}）与按原始数值交付（{@link ITypedReadCallback}）的吞吐量。
+ *
+ * <pre>
+ * 1、数值包括整数和一位小数，即excel中通常以RK、MULRK记录保存的数值，读取后都是NumberRecord；
+ * 2、字符串交付时每个数值都经过DataFormatter转换为字符串，再由回调方解析回double；
+ *   原始数值交付时直接读取double，两种方式得到的数值之和必须与生成时一致；
+ * 3、先预热，再各读取{@value #ROUNDS}次，取最快的一次，结果输出到标准输出。
+ *   耗时受运行环境影响较大，这里只输出不做断言。
+ * </pre>
+ */
+public class XlsNumericThroughputTest {
+
+    private static final int ROWS = 30000;
+
+    private static final int COLUMNS = 10;
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    private static final int ROUNDS = 3;
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void primitiveDeliveryAgainstStringDelivery() throws Exception {
+        File file = createXls();
+        double expected = 0;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                expected += value(r, c);
+            }
+        }
+
+        assertEquals(expected, readStrings(file), 0);
+        assertEquals(expected, readNumbers(file), 0);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            readStrings(file);
+            readNumbers(file);
+        }
+        long stringBest = Long.MAX_VALUE;
+        long numberBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            readStrings(file);
+            stringBest = Math.min(stringBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            readNumbers(file);
+            numberBest = Math.min(numberBest, System.nanoTime() - start);
+        }
+
+        double cells = ROWS * COLUMNS / 1e6;
+        System.out.println(String.format(Locale.US,
+                "xls %d numeric cells: string %.2fM cells/s, primitive %.2fM cells/s (%.2fx)",
+                ROWS * COLUMNS, cells / (stringBest / 1e9), cells / (numberBest / 1e9),
+                (double) stringBest / numberBest));
+    }
+
+    /** 按字符串读取，每个单元格解析回double后求和 */
+    private static double readStrings(@NonNull File file) {
+        final double[] sum = {0};
+        ExcelReader.getInstance().read(file.getPath(), ReadOptions.DEFAULT, new IReadCallback() {
+            @Override
+            public void onRowRead(int rowIndex, @NonNull List<String> row) {
+                for (int i = 0; i < row.size(); i++) {
+                    sum[0] += Double.parseDouble(row.get(i));
+                }
+            }
+
+            @Override
+            public void onFinished() {
+            }
+        });
+        return sum[0];
+    }
+
+    /** 按原始数值读取后求和 */
+    private static double readNumbers(@NonNull File file) {
+        final double[] sum = {0};
+        ExcelReader.getInstance().read(file.getPath(), ReadOptions.DEFAULT, new ITypedReadCallback() {
+            @Override
+            public void onRowRead(@NonNull CellRow row) {
+                CellRow.Cursor cursor = row.cursor();
+                while (cursor.next()) {
+                    sum[0] += cursor.getDouble();
+                }
+            }
+
+            @Override
+            public void onFinished() {
+            }
+        });
+        return sum[0];
+    }
+
+    @NonNull
+    private static File createXls() throws Exception {
+        File file = folder.newFile("numeric.xls");
+        try (HSSFWorkbook workbook = new HSSFWorkbook();
+             OutputStream out = new FileOutputStream(file)) {
+            HSSFSheet sheet = workbook.createSheet("numeric");
+            for (int r = 0; r < ROWS; r++) {
+                HSSFRow row = sheet.createRow(r);
+                for (int c = 0; c < COLUMNS; c++) {
+                    row.createCell(c).setCellValue(value(r, c));
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    /** 偶数列为整数，奇数列为一位小数 */
+    private static double value(int row, int column) {
+        return column % 2 == 0 ? row + column : (row % 1000) * 0.5 + column;
+    }
+}
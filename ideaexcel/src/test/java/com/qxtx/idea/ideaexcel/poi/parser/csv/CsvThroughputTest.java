@@ -0,0 +1,284 @@
+package com.qxtx.idea.ideaexcel.poi.parser.csv;
+
+import android.support.annotation.NonNull;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created in 2020/5/22 16:10
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 比较读取utf-8等csv文件时实际使用的{@link ByteCsvTokenizer}与原来逐行readLine的parseCsv的吞吐量。
+ *
+ * <pre>
+ * 1、先逐行比较：原来的parseCsv、{@link ByteCsvTokenizer}和{@link CsvTokenizer}（非ASCII兼容编码使用）
+ *   读取的每一行必须完全一致，保证比较的是相同的工作量；
+ * 2、原来的做法不支持单元格内换行，生成的文件中只有带[,]和["]的单元格，以及空单元格；
+ * 3、计时时每种方式都把每一行转换为List&lt;String&gt;，先预热，再各读取{@value #ROUNDS}次，取最快的一次，
+ *   结果输出到标准输出。耗时受运行环境影响较大，吞吐量只输出不做断言。
+ * </pre>
+ */
+public class CsvThroughputTest {
+
+    private static final int ROWS = 300000;
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    private static final int ROUNDS = 3;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char CSV_SEP_CHAR = ',';
+
+    private static final char CSV_SPEC_CHAR = '"';
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void tokenizerThroughputAgainstReadLineParser() throws Exception {
+        File file = createCsv();
+        assertSameRows(file);
+
+        Checksum expected = parseLines(file);
+        assertEquals(ROWS, expected.rows);
+        assertEquals(expected, tokenize(file));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parseLines(file);
+            tokenize(file);
+        }
+        long lineBest = Long.MAX_VALUE;
+        long tokenizerBest = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            parseLines(file);
+            lineBest = Math.min(lineBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            tokenize(file);
+            tokenizerBest = Math.min(tokenizerBest, System.nanoTime() - start);
+        }
+
+        double mb = file.length() / (1024.0 * 1024.0);
+        System.out.println(String.format(Locale.US,
+                "csv %.1fMB, %d rows: readLine %.1fMB/s, ByteCsvTokenizer %.1fMB/s (%.2fx)",
+                mb, ROWS, mb / (lineBest / 1e9), mb / (tokenizerBest / 1e9), (double) lineBest / tokenizerBest));
+    }
+
+    /** 三种方式同时逐行读取，每一行的内容必须完全一致 */
+    private static void assertSameRows(@NonNull File file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+             ByteCsvTokenizer bytes = new ByteCsvTokenizer(new FileInputStream(file), UTF_8);
+             CsvTokenizer chars = new CsvTokenizer(new InputStreamReader(new FileInputStream(file), UTF_8))) {
+            int rows = 0;
+            String line;
+            while ((line = br.readLine()) != null) {
+                List<String> expected = parseLine(line, sb);
+                assertTrue("ByteCsvTokenizer缺少第" + rows + "行", bytes.nextRow());
+                assertEquals("ByteCsvTokenizer第" + rows + "行", expected, toList(bytes));
+                assertTrue("CsvTokenizer缺少第" + rows + "行", chars.nextRow());
+                assertEquals("CsvTokenizer第" + rows + "行", expected, toList(chars));
+                rows++;
+            }
+            assertFalse("ByteCsvTokenizer多出了行", bytes.nextRow());
+            assertFalse("CsvTokenizer多出了行", chars.nextRow());
+            assertEquals(ROWS, rows);
+        }
+    }
+
+    /** 使用{@link ByteCsvTokenizer}按行读取 */
+    @NonNull
+    private static Checksum tokenize(@NonNull File file) throws IOException {
+        Checksum checksum = new Checksum();
+        try (ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(new FileInputStream(file), UTF_8)) {
+            while (tokenizer.nextRow()) {
+                checksum.add(toList(tokenizer));
+            }
+        }
+        return checksum;
+    }
+
+    @NonNull
+    private static List<String> toList(@NonNull ICsvTokenizer tokenizer) {
+        int cellCount = tokenizer.getCellCount();
+        List<String> rowInfo = new ArrayList<>(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            rowInfo.add(tokenizer.getCellString(i));
+        }
+        return rowInfo;
+    }
+
+    /** 使用原来的parseCsv按行读取 */
+    @NonNull
+    private static Checksum parseLines(@NonNull File file) throws IOException {
+        Checksum checksum = new Checksum();
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8),
+                200 * 1024)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                checksum.add(parseLine(line, sb));
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * 原来的parseCsv：readLine读取一整行，再逐个字符查找单元格的边界，带双引号的单元格经过StringBuilder还原。
+     * 除了去掉每个空单元格的日志以外，与原来的实现相同
+     */
+    @NonNull
+    private static List<String> parseLine(@NonNull String line, @NonNull StringBuilder sb) {
+        List<String> rowInfo = new ArrayList<>();
+        int startPos = 0;
+        int lineLen = line.length();
+        while (startPos < lineLen) {
+            char startChar = line.charAt(startPos);
+            if (startChar == CSV_SEP_CHAR) {
+                rowInfo.add("");
+                startPos++;
+                if (startPos == lineLen) {
+                    rowInfo.add("");
+                    break;
+                } else {
+                    continue;
+                }
+            }
+
+            sb.delete(0, sb.length());
+
+            String cell;
+            if (startChar == CSV_SPEC_CHAR) {
+                sb.append(startChar);
+                if (startPos + 2 > lineLen) {
+                    throw new IllegalStateException("缺少\"，无法解析的单元格");
+                }
+                for (startPos++; startPos < lineLen; startPos++) {
+                    char c = line.charAt(startPos);
+                    if (c == CSV_SPEC_CHAR) {
+                        int nextPos = startPos + 1;
+                        if (nextPos == lineLen) {
+                            sb.append(c);
+                            startPos++;
+                            break;
+                        }
+
+                        char nextChar = line.charAt(nextPos);
+                        if (nextChar == CSV_SEP_CHAR) {
+                            sb.append(c);
+                            startPos += 2;
+                            break;
+                        } else if (nextChar == CSV_SPEC_CHAR) {
+                            sb.append(c);
+                            startPos++;
+                            continue;
+                        } else {
+                            throw new IllegalStateException("检测到非法数据，解析异常");
+                        }
+                    } else {
+                        sb.append(c);
+                    }
+                }
+                cell = sb.toString();
+                cell = cell.substring(1, cell.length() - 1);
+            } else {
+                int sepIndex = line.indexOf(CSV_SEP_CHAR, startPos);
+                cell = sepIndex == -1 ? line.substring(startPos) : line.substring(startPos, sepIndex);
+                startPos = sepIndex == -1 ? lineLen : (sepIndex + 1);
+            }
+
+            rowInfo.add(cell);
+
+            if (startPos == lineLen && line.charAt(startPos - 1) == CSV_SEP_CHAR) {
+                rowInfo.add("");
+            }
+        }
+        return rowInfo;
+    }
+
+    /** 生成测试文件，每行8列，包含普通单元格、带[,]和["]的单元格，以及空单元格 */
+    @NonNull
+    private static File createCsv() throws IOException {
+        File file = folder.newFile("throughput.csv");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8)) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < ROWS; i++) {
+                line.setLength(0);
+                line.append(i).append(',')
+                        .append("名称").append(i % 97).append(',')
+                        .append(i * 1.25).append(',')
+                        .append("2020-05-").append(10 + i % 20).append(',');
+                if (i % 4 == 0) {
+                    line.append("\"地址,").append(i % 13).append("号\"");
+                } else {
+                    line.append("普通地址").append(i % 13);
+                }
+                line.append(',');
+                if (i % 7 == 0) {
+                    line.append("\"备注\"\"").append(i).append("\"\"\"");
+                }
+                line.append(",status").append(i % 3).append(',').append(i % 10 == 0 ? "" : "end");
+                line.append(i % 2 == 0 ? "\r\n" : "\n");
+                writer.write(line.toString());
+            }
+        }
+        return file;
+    }
+
+    /** 读取结果的摘要：行数、单元格数和按位置计算的哈希值 */
+    private static final class Checksum {
+
+        int rows;
+
+        long cells;
+
+        long hash;
+
+        void add(@NonNull List<String> rowInfo) {
+            rows++;
+            cells += rowInfo.size();
+            hash = hash * 31 + rowInfo.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Checksum)) {
+                return false;
+            }
+            Checksum other = (Checksum) o;
+            return rows == other.rows && cells == other.cells && hash == other.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ cells ^ rows);
+        }
+
+        @Override
+        public String toString() {
+            return "rows=" + rows + ", cells=" + cells + ", hash=" + hash;
+        }
+    }
+}
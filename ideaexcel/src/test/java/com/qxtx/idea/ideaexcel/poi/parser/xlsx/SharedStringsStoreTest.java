@@ -0,0 +1,121 @@
+package com.qxtx.idea.ideaexcel.poi.parser.xlsx;
+
+import android.support.annotation.NonNull;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created in 2020/5/22 17:50
+ *
+ * @author QXTX-WORK
+ * <p>
+ * Description 所有共享字符串表的存储方式写入后按序号读取，结果必须与写入的字符串完全一致。
+ *
+ * <pre>
+ * 覆盖空字符串、代理对（emoji、扩展汉字）、比一个数据块（4MB）更大的字符串，
+ * 以及大量短字符串跨越多个数据块的情况。映射文件模式的临时文件在关闭后必须被删除。
+ * </pre>
+ */
+public class SharedStringsStoreTest {
+
+    /** {@link BufferSharedStringsStore}的数据块大小 */
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void heapStoreRoundTrip() throws Exception {
+        assertRoundTrip(new HeapSharedStringsStore());
+    }
+
+    @Test
+    public void offHeapStoreRoundTrip() throws Exception {
+        assertRoundTrip(BufferSharedStringsStore.offHeap());
+    }
+
+    @Test
+    public void mappedFileStoreRoundTrip() throws Exception {
+        assertRoundTrip(BufferSharedStringsStore.mappedFile(folder.getRoot()));
+        assertEquals("关闭后应该删除临时文件", 0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void unpairedSurrogateIsReplaced() throws Exception {
+        try (ISharedStringsStore store = BufferSharedStringsStore.offHeap()) {
+            store.add("a\uD83Db");
+            store.add("\uDE00");
+            assertEquals("a?b", store.get(0));
+            assertEquals("?", store.get(1));
+        }
+    }
+
+    private static void assertRoundTrip(@NonNull ISharedStringsStore store) throws Exception {
+        List<String> expected = createStrings();
+        try {
+            for (String text : expected) {
+                //与解析时一样以可变的CharSequence写入
+                store.add(new StringBuilder(text));
+            }
+            assertEquals(expected.size(), store.size());
+            //先倒序再正序读取，第二次读取经过缓存
+            for (int i = expected.size() - 1; i >= 0; i--) {
+                assertEquals("序号" + i, expected.get(i), store.get(i));
+            }
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals("序号" + i, expected.get(i), store.get(i));
+            }
+
+            try {
+                store.get(expected.size());
+                fail("序号超出范围时应该抛出异常");
+            } catch (IndexOutOfBoundsException e) {
+                //预期的异常
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    @NonNull
+    private static List<String> createStrings() {
+        List<String> strings = new ArrayList<>();
+        strings.add("");
+        strings.add("ascii");
+        strings.add("中文字符串");
+        strings.add("emoji😀与扩展汉字𠀀");
+        strings.add("");
+
+        //utf-8编码后超过一个数据块：3字节的汉字和4字节的代理对
+        strings.add(repeat("汉", CHUNK_SIZE / 3 + 1));
+        strings.add(repeat("😀", CHUNK_SIZE / 4 + 1));
+        strings.add("大字符串之后");
+        //恰好填满一个数据块（4字节长度 + 内容）
+        strings.add(repeat("a", CHUNK_SIZE - 4));
+
+        //大量短字符串跨越多个数据块边界
+        for (int i = 0; i < 200000; i++) {
+            strings.add(i % 50 == 0 ? "" : "第" + i + "个字符串😃" + repeat("x", i % 40));
+        }
+        assertTrue(strings.size() > 4096);
+        return strings;
+    }
+
+    @NonNull
+    private static String repeat(@NonNull String text, int count) {
+        char[] chars = new char[text.length() * count];
+        for (int i = 0; i < count; i++) {
+            text.getChars(0, text.length(), chars, i * text.length());
+        }
+        return new String(chars);
+    }
+}